@@ -1,10 +1,12 @@
 package engine;
 
-import java.util.Random;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 
 import engine.pieces.*;
 
-public class Chamber { // contains all the pieces
+public class Chamber implements ChamberView { // contains all the pieces
 
 	// so pieces don't get stuck at spawn.
 	// invisible to other classes
@@ -17,22 +19,97 @@ public class Chamber { // contains all the pieces
 	private int height;
 
 	private int[][][] cubes; // standard r-hand coordinate system
+	private Occupancy occupancy; // same thing, one bit per cube
+	private int[] planeFill; // how many cubes are in each plane
+	private int[] columnHeight; // one above the highest cube in each column
+	private int[] clearedBelow; // scratch for fixing column heights after a clear
+	// kept up to date on every lock, so evaluators never have to scan the cubes
+	private int aggregateHeight, holes, roughness, wellDepth;
+	private Features lockChanges = new Features();
+	private int[] neighbours; // four per column, -1 past a wall
+	private long heightsVersion = 0; // goes up whenever columnHeight changes, for previews
+	// zobrist hashing. every plane hashes its own cubes, and the chamber's hash mixes each of
+	// those with its height, so a clear only has to move plane hashes around
+	private long[] cellKeys; // by bit index, the same for every chamber this size
+	private long[] planeKeys; // odd, so multiplying by one loses nothing
+	private long[] planeHash;
+	private long hash = 0;
+	// searching locks pieces and takes them back, newest first. the records get reused
+	private boolean undoable = false;
+	private LockRecord[] undo = new LockRecord[0];
+	private int undoDepth = 0;
+	private Piece[] spawned = new Piece[PieceType.COUNT]; // one of each, reused by spawn
+	// and one of each for copyFrom's next piece, kept apart so placing it never moves the falling one
+	private Piece[] queued = new Piece[PieceType.COUNT];
 	private Piece fallingPiece = null;
 	private Piece nextPiece = null;
+	private int fallingType, nextType; // see PieceType, so replays can write them down
+	// each falling block packed, so nothing has to ask the piece again
+	private int[] fallingCells = new int[PieceShape.BLOCKS];
+	private int[] previousCells = new int[PieceShape.BLOCKS];
+	private Occupancy.Footprint[] fallingFootprints; // by orientation
+	private Map<PieceShape, Occupancy.Footprint[]> footprints =
+			new HashMap<PieceShape, Occupancy.Footprint[]>();
 
 	private IntPoint start;
 	private boolean toppedOut = false;
 	
-	private Random rand = new Random();
+	private PieceGenerator generator; // each chamber has its own, so games can run side by side
+	
+	private ChamberListener listener = null;
 	
 	public Chamber(int length, int width, int height) {
+		this(length, width, height, System.nanoTime());
+	}
+
+	// the same seed always deals the same pieces
+	public Chamber(int length, int width, int height, long seed) {
+		this(length, width, height, new UniformGenerator(seed));
+	}
+
+	public Chamber(int length, int width, int height, PieceGenerator generator) {
+		this.generator = generator;
+		build(length, width, height + SAFE_HEIGHT);
+		nextPiece = getRandomPiece();
+		nextPiece();
+	}
+
+	// a copy to search on. it has no generator, so new pieces only come in through spawn
+	public Chamber(Chamber other) {
+		build(other.length, other.width, other.height);
+		copyFrom(other);
+	}
+
+	private void build(int length, int width, int fullHeight) {
 		this.length = length;
 		this.width = width;
-		this.height = height + SAFE_HEIGHT;
-		cubes = new int[this.length][this.width][this.height];
-		start = new IntPoint(length / 2, width / 2, this.height - 2);
-		fallingPiece = getRandomPiece();
-		nextPiece = getRandomPiece();
+		this.height = fullHeight;
+		cubes = new int[length][width][fullHeight];
+		occupancy = new Occupancy(length, width, fullHeight);
+		planeFill = new int[fullHeight];
+		columnHeight = new int[length * width];
+		clearedBelow = new int[fullHeight + 1];
+		neighbours = new int[4 * length * width];
+		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++) {
+				int n = 4 * occupancy.bitIndex(x, y);
+				neighbours[n] = x > 0 ? occupancy.bitIndex(x - 1, y) : -1;
+				neighbours[n + 1] = x < length - 1 ? occupancy.bitIndex(x + 1, y) :
+						-1;
+				neighbours[n + 2] = y > 0 ? occupancy.bitIndex(x, y - 1) : -1;
+				neighbours[n + 3] = y < width - 1 ? occupancy.bitIndex(x, y + 1) :
+						-1;
+			}
+		}
+		cellKeys = new long[length * width];
+		for(int i = 0; i < cellKeys.length; i++)
+			cellKeys[i] = mix(i);
+		planeKeys = new long[fullHeight];
+		for(int z = 0; z < fullHeight; z++)
+			planeKeys[z] = mix(-1 - z) | 1;
+		planeHash = new long[fullHeight];
+		recountFeatures();
+		start = new IntPoint(length / 2, width / 2, fullHeight - 2);
 	}
 
 	public int getLength() {
@@ -47,25 +124,66 @@ public class Chamber { // contains all the pieces
 		return height - SAFE_HEIGHT;
 	}
 
+	public void setChamberListener(ChamberListener listener) {
+		this.listener = listener;
+	}
+
 	public boolean isToppedOut() {
 		return toppedOut;
 	}
 
-	public int[][][] getCubes() {
-		int[][][] copy = new int[length][width][height - SAFE_HEIGHT];
+	@Override
+	public int colorAt(int x, int y, int z) {
+		if(x < 0 || x >= length || y < 0 || y >= width || z < 0 ||
+				z >= height - SAFE_HEIGHT)
+			return Piece.NOTHING;
+		if(isFallingPiece(x, y, z))
+			return fallingPiece.getColor();
+		return cubes[x][y][z];
+	}
+
+	@Override
+	public boolean isFallingPiece(int x, int y, int z) {
+		if(fallingPiece == null)
+			return false;
+		int cell = PackedPoint.pack(x, y, z);
+		for(int i = 0; i < fallingCells.length; i++) {
+			if(fallingCells[i] == cell)
+				return true;
+		}
+		return false;
+	}
+
+	@Override
+	public IntPoint[] getFallingBlocks() {
+		if(fallingPiece == null)
+			return new IntPoint[0];
+		return fallingPiece.getBlocks();
+	}
+
+	@Override
+	public int getFallingCells(int[] into) {
+		if(fallingPiece == null)
+			return 0;
+		System.arraycopy(fallingCells, 0, into, 0, fallingCells.length);
+		return fallingCells.length;
+	}
+
+	@Override
+	public int[][][] snapshot() {
+		int visible = height - SAFE_HEIGHT;
+		int[][][] copy = new int[length][width][visible];
 		for(int x = 0; x < length; x++) {
 			for(int y = 0; y < width; y++) {
-				for(int z = 0; z < height - SAFE_HEIGHT; z++) {
-					copy[x][y][z] = cubes[x][y][z];
-				}
+				System.arraycopy(cubes[x][y], 0, copy[x][y], 0, visible);
 			}
 		}
 		if(fallingPiece != null) {
-			for(int i = 0; i < 4; i++) {
-				IntPoint p = fallingPiece.getBlocks()[i];
-				if(p.getZ() < height - SAFE_HEIGHT) {
-					copy[p.getX()][p.getY()][p.getZ()] = fallingPiece
-							.getColor();
+			for(int cell : fallingCells) {
+				int z = PackedPoint.getZ(cell);
+				if(z < visible) {
+					copy[PackedPoint.getX(cell)][PackedPoint.getY(cell)][z] =
+							fallingPiece.getColor();
 				}
 			}
 		}
@@ -73,125 +191,175 @@ public class Chamber { // contains all the pieces
 	}
 
 	public boolean moveXPlus() {
-		fallingPiece.moveXPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveXMinus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.RIGHT));
 	}
 
 	public boolean moveXMinus() {
-		fallingPiece.moveXMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveXPlus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.LEFT));
 	}
 
 	public boolean moveYPlus() {
-		fallingPiece.moveYPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveYMinus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.FRONT));
 	}
 
 	public boolean moveYMinus() {
-		fallingPiece.moveYMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveYPlus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.BACK));
 	}
 
 	public boolean moveZPlus() {
-		fallingPiece.moveZPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveZMinus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.UP));
 	}
 
 	public boolean moveZMinus() {
-		fallingPiece.moveZMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.moveZPlus();
-		return false;
+		return place(fallingPiece.getOrientation(),
+				PackedPoint.add(fallingPiece.getPosition(), PackedPoint.DOWN));
 	}
 
 	public boolean rotateXPlus() {
-		fallingPiece.rotateXPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateXMinus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.X_PLUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
 	}
 
 	public boolean rotateXMinus() {
-		fallingPiece.rotateXMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateXPlus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.X_MINUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
 	}
 
 	public boolean rotateYPlus() {
-		fallingPiece.rotateYPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateYMinus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.Y_PLUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
 	}
 
 	public boolean rotateYMinus() {
-		fallingPiece.rotateYMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateYPlus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.Y_MINUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
 	}
 
 	public boolean rotateZPlus() {
-		fallingPiece.rotateZPlus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateZMinus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.Z_PLUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
 	}
 
 	public boolean rotateZMinus() {
-		fallingPiece.rotateZMinus();
-		if(isObstructed())
-			return true;
-		fallingPiece.rotateZPlus();
-		return false;
+		return place(fallingPiece.getShape().rotate(PieceShape.Z_MINUS,
+				fallingPiece.getOrientation()), fallingPiece.getPosition());
+	}
+
+	// whether the falling piece could be turned and moved there, without touching it
+	public boolean canPlace(int orientation, int position) {
+		return occupancy.fits(getFootprint(orientation), position);
+	}
+
+	// puts the falling piece there if it fits, otherwise leaves it alone
+	public boolean place(int orientation, int position) {
+		if(!canPlace(orientation, position))
+			return false;
+		fallingPiece.place(orientation, position);
+		return pieceMoved();
+	}
+
+	public PieceShape getFallingShape() {
+		return fallingPiece == null ? null : fallingPiece.getShape();
+	}
+
+	public int getFallingOrientation() {
+		return fallingPiece.getOrientation();
+	}
+
+	public int getFallingPosition() {
+		return fallingPiece.getPosition();
 	}
 
-	public void lockPiece() {
-		IntPoint[] blocks = fallingPiece.getBlocks();
-		for(int i = 0; i < 4; i++) {
-			IntPoint p = blocks[i];
-			if(!p.inBounds(length, width, height))
+	// returns how many planes it cleared
+	public int lockPiece() {
+		System.arraycopy(fallingCells, 0, lockChanges.cells, 0,
+				PieceShape.BLOCKS);
+		preview(lockChanges);
+		if(undoable)
+			record(lockChanges);
+		heightsVersion++;
+		aggregateHeight += lockChanges.aggregateHeight;
+		holes += lockChanges.holes;
+		roughness += lockChanges.roughness;
+		wellDepth += lockChanges.wellDepth;
+		for(int cell : fallingCells) {
+			if(!PackedPoint.inBounds(cell, length, width, height))
 				continue;
-			cubes[p.getX()][p.getY()][p.getZ()] = fallingPiece.getColor();
+			int x = PackedPoint.getX(cell);
+			int y = PackedPoint.getY(cell);
+			int z = PackedPoint.getZ(cell);
+			cubes[x][y][z] = fallingPiece.getColor();
+			int column = occupancy.bitIndex(x, y);
+			if(!occupancy.isFilled(x, y, z)) {
+				planeFill[z]++;
+				hash ^= planeHash[z] * planeKeys[z];
+				planeHash[z] ^= cellKeys[column];
+				hash ^= planeHash[z] * planeKeys[z];
+			}
+			occupancy.set(x, y, z);
+			columnHeight[column] = Math.max(columnHeight[column], z + 1);
+			if(listener != null)
+				listener.cellChanged(x, y, z);
 		}
 		fallingPiece = null;
-		checkAllRows();
+		int cleared = checkAllRows();
 		checkTopOut();
+		return cleared;
+	}
+
+	// how far the falling piece would fall before landing on something
+	public int dropDistance() {
+		if(fallingPiece == null)
+			return 0;
+		int distance = Integer.MAX_VALUE;
+		for(int cell : fallingCells) {
+			int x = PackedPoint.getX(cell);
+			int y = PackedPoint.getY(cell);
+			int z = PackedPoint.getZ(cell);
+			if(x < 0 || x >= length || y < 0 || y >= width)
+				return 0;
+			int floor = columnHeight[occupancy.bitIndex(x, y)];
+			if(z < floor) {
+				// tucked under an overhang, so the column height doesn't help
+				floor = z;
+				while(floor > 0 && !occupancy.isFilled(x, y, floor - 1))
+					floor--;
+			}
+			distance = Math.min(distance, z - floor);
+		}
+		return distance;
+	}
+
+	// moves the piece straight to where it would land, in one step
+	public boolean dropPiece() {
+		int distance = dropDistance();
+		if(distance == 0)
+			return false;
+		fallingPiece.place(fallingPiece.getOrientation(), PackedPoint.add(
+				fallingPiece.getPosition(), PackedPoint.pack(0, 0, -distance)));
+		return pieceMoved();
 	}
 
 	public void nextPiece() {
 		fallingPiece = nextPiece;
+		fallingType = nextType;
 		nextPiece = getRandomPiece();
+		fallingPiece.getBlocks(fallingCells);
+		fallingFootprints = getFootprints(fallingPiece.getShape());
+		if(listener != null)
+			fireCells(fallingCells);
 	}
 
 	public boolean pieceActive() {
 		if(fallingPiece == null)
 			return false;
-		for(int i = 0; i < 4; i++) {
-			IntPoint p = fallingPiece.getBlocks()[i];
-			if(p.getZ() < height - SAFE_HEIGHT)
+		for(int cell : fallingCells) {
+			if(PackedPoint.getZ(cell) < height - SAFE_HEIGHT)
 				return true;
 		}
 		return false;
@@ -200,91 +368,696 @@ public class Chamber { // contains all the pieces
 	public Piece getNextPiece() {
 		return nextPiece;
 	}
-	
-	private void checkTopOut() {
+
+	public int getFallingType() {
+		return fallingType;
+	}
+
+	public int getNextType() {
+		return nextType;
+	}
+
+	// including the safe area on top, for saving the whole thing
+	public int getFullHeight() {
+		return height;
+	}
+
+	// the occupancy bits of a plane, x changing fastest. for searching without asking cube by cube
+	public long getPlaneWord(int z, int word) {
+		return occupancy.getWord(z, word);
+	}
+
+	public int getWordsPerPlane() {
+		return occupancy.getWordsPerPlane();
+	}
+
+	public int getColumnHeight(int x, int y) {
+		return columnHeight[occupancy.bitIndex(x, y)];
+	}
+
+	public int getPlaneFill(int z) {
+		return planeFill[z];
+	}
+
+	public int getAggregateHeight() {
+		return aggregateHeight;
+	}
+
+	public int getHoles() {
+		return holes;
+	}
+
+	public int getRoughness() {
+		return roughness;
+	}
+
+	public int getWellDepth() {
+		return wellDepth;
+	}
+
+	// the same for any two chambers this size with cubes in the same places, whatever color.
+	// 0 when it's empty
+	public long getHash() {
+		return hash;
+	}
+
+	// counts the falling piece too, what it is and where, but not the next one
+	public long getStateHash() {
+		if(fallingPiece == null)
+			return hash;
+		return hash ^ mix(((long) fallingType << 56 | (long) fallingPiece.getOrientation()
+				<< 40 | fallingPiece.getPosition() & 0xFFFFFFFFL) ^ 0x5DEECE66DL);
+	}
+
+	public void getFeatures(Features into) {
+		into.aggregateHeight = aggregateHeight;
+		into.holes = holes;
+		into.roughness = roughness;
+		into.wellDepth = wellDepth;
+		into.cleared = 0;
+		into.toppedOut = toppedOut;
+	}
+
+	// fills in what locking the falling piece there would change, from the counters and the
+	// cells it lands in. nothing gets copied or touched, so several threads can ask at once as
+	// long as each has its own Features. the piece has to fit there
+	public void previewLock(int orientation, int position, Features into) {
+		PieceShape shape = fallingPiece.getShape();
+		for(int b = 0; b < PieceShape.BLOCKS; b++)
+			into.cells[b] = PackedPoint.add(position, shape.getCell(orientation, b));
+		preview(into);
+	}
+
+	// makes this the same as other, which has to be the same size. the generator isn't copied
+	public void copyFrom(Chamber other) {
 		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++)
+				System.arraycopy(other.cubes[x][y], 0, cubes[x][y], 0, height);
+		}
+		occupancy.copyFrom(other.occupancy);
+		System.arraycopy(other.planeFill, 0, planeFill, 0, height);
+		System.arraycopy(other.columnHeight, 0, columnHeight, 0,
+				columnHeight.length);
+		System.arraycopy(other.planeHash, 0, planeHash, 0, height);
+		hash = other.hash;
+		aggregateHeight = other.aggregateHeight;
+		holes = other.holes;
+		roughness = other.roughness;
+		wellDepth = other.wellDepth;
+		heightsVersion++;
+		score = other.score;
+		toppedOut = other.toppedOut;
+		undoDepth = 0;
+		if(other.fallingPiece == null) {
+			fallingPiece = null;
+			fallingFootprints = null; // they'd be the last piece's
+		} else {
+			spawn(other.fallingType);
+			fallingPiece.place(other.getFallingOrientation(),
+					other.getFallingPosition());
+			fallingPiece.getBlocks(fallingCells);
+		}
+		nextType = other.nextType;
+		if(queued[nextType] == null)
+			queued[nextType] = PieceType.create(nextType, start);
+		nextPiece = queued[nextType];
+		nextPiece.place(0, PackedPoint.fromIntPoint(start));
+	}
+
+	// brings in a piece of that type at the top, the way a new one would, without dealing it.
+	// the next piece stays the same
+	public void spawn(int type) {
+		if(spawned[type] == null)
+			spawned[type] = PieceType.create(type, start);
+		fallingPiece = spawned[type];
+		fallingPiece.place(0, PackedPoint.fromIntPoint(start));
+		fallingType = type;
+		fallingPiece.getBlocks(fallingCells);
+		fallingFootprints = getFootprints(fallingPiece.getShape());
+		if(listener != null)
+			fireCells(fallingCells);
+	}
+
+	// while this is on, every lock can be taken back with undoLock
+	public void setUndoable(boolean undoable) {
+		this.undoable = undoable;
+		undoDepth = 0;
+	}
+
+	public int getUndoDepth() {
+		return undoDepth;
+	}
+
+	// puts back the last piece locked, cleared planes and all, with the piece falling where it was
+	public void undoLock() {
+		if(undoDepth == 0)
+			throw new IllegalStateException("nothing to undo");
+		LockRecord r = undo[--undoDepth];
+		if(r.from >= 0) {
+			occupancy.loadPlanes(r.from, r.bits);
+			System.arraycopy(r.planeFill, 0, planeFill, r.from, height - r.from);
+			System.arraycopy(r.planeHash, 0, planeHash, r.from, height - r.from);
+			for(int x = 0; x < length; x++) {
+				for(int y = 0; y < width; y++)
+					System.arraycopy(r.cubes, (x * width + y) * height, cubes[x][y],
+							r.from, height - r.from);
+			}
+		}
+		// whatever went in above the planes that were put back still has to come out
+		for(int i = 0; i < r.kept; i++) {
+			int cell = r.cells[i];
+			int x = PackedPoint.getX(cell);
+			int y = PackedPoint.getY(cell);
+			int z = PackedPoint.getZ(cell);
+			if(r.from >= 0 && z >= r.from)
+				continue;
+			cubes[x][y][z] = Piece.NOTHING;
+			occupancy.clear(x, y, z);
+			planeFill[z]--;
+			planeHash[z] ^= cellKeys[occupancy.bitIndex(x, y)];
+		}
+		hash = r.hash;
+		System.arraycopy(r.columnHeight, 0, columnHeight, 0, columnHeight.length);
+		aggregateHeight = r.aggregateHeight;
+		holes = r.holes;
+		roughness = r.roughness;
+		wellDepth = r.wellDepth;
+		heightsVersion++;
+		score = r.score;
+		toppedOut = r.toppedOut;
+		fallingPiece = r.piece;
+		fallingType = r.type;
+		fallingPiece.place(r.orientation, r.position);
+		fallingPiece.getBlocks(fallingCells);
+		fallingFootprints = getFootprints(fallingPiece.getShape());
+		if(listener != null)
+			listener.planesChanged(0);
+	}
+
+	// how many longs encode writes: the occupancy bits of every plane, safe area included
+	public int getEncodedLength() {
+		return height * occupancy.getWordsPerPlane();
+	}
+
+	// enough to search from without keeping a whole chamber around
+	public void encode(long[] into, int offset) {
+		occupancy.savePlanes(0, into, offset);
+	}
+
+	// puts back the cubes encode saved. colors aren't in there, so they all come back white. the
+	// pieces and the score stay as they are, and nothing before this can be undone
+	public void decode(long[] from, int offset) {
+		occupancy.loadPlanes(0, from, offset);
+		for(int z = 0; z < height; z++) {
+			planeFill[z] = 0;
+			planeHash[z] = 0;
+			for(int y = 0; y < width; y++) {
+				for(int x = 0; x < length; x++) {
+					if(occupancy.isFilled(x, y, z)) {
+						cubes[x][y][z] = Piece.WHITE;
+						planeFill[z]++;
+						planeHash[z] ^= cellKeys[occupancy.bitIndex(x, y)];
+					} else {
+						cubes[x][y][z] = Piece.NOTHING;
+					}
+				}
+			}
+		}
+		rehash();
+		recount();
+		undoDepth = 0;
+		if(listener != null)
+			listener.planesChanged(0);
+	}
+
+	// just the locked cubes, safe area included
+	public int cubeAt(int x, int y, int z) {
+		return cubes[x][y][z];
+	}
+
+	// puts everything back the way it was when a replay saved it. cubes has x changing fastest,
+	// then y, then z, over the full height. the generator has to be caught up by the caller
+	public void restore(int[] cubes, long score, int fallingType,
+			int orientation, int position, int nextType) {
+		for(int z = 0; z < height; z++) {
+			planeFill[z] = 0;
+			planeHash[z] = 0;
+			occupancy.clearPlane(z);
 			for(int y = 0; y < width; y++) {
-				if(cubes[x][y][height - SAFE_HEIGHT] != Piece.NOTHING) {
-					toppedOut = true;
-					System.out.println("Topped out");
+				for(int x = 0; x < length; x++) {
+					int color = cubes[(z * width + y) * length + x];
+					this.cubes[x][y][z] = color;
+					if(color != Piece.NOTHING) {
+						occupancy.set(x, y, z);
+						planeFill[z]++;
+						planeHash[z] ^= cellKeys[occupancy.bitIndex(x, y)];
+					}
 				}
 			}
 		}
+		rehash();
+		this.score = score;
+		recount();
+		this.fallingType = fallingType;
+		fallingPiece = PieceType.create(fallingType, start);
+		fallingPiece.place(orientation, position);
+		fallingPiece.getBlocks(fallingCells);
+		fallingFootprints = getFootprints(fallingPiece.getShape());
+		this.nextType = nextType;
+		nextPiece = PieceType.create(nextType, start);
+		if(listener != null)
+			listener.planesChanged(0);
+	}
+	
+	private void record(Features f) {
+		if(undoDepth == undo.length)
+			undo = Arrays.copyOf(undo, Math.max(4, 2 * undo.length));
+		if(undo[undoDepth] == null)
+			undo[undoDepth] = new LockRecord();
+		LockRecord r = undo[undoDepth++];
+		r.kept = f.kept;
+		System.arraycopy(f.cells, 0, r.cells, 0, f.kept);
+		if(r.columnHeight.length != columnHeight.length)
+			r.columnHeight = new int[columnHeight.length];
+		System.arraycopy(columnHeight, 0, r.columnHeight, 0, columnHeight.length);
+		r.aggregateHeight = aggregateHeight;
+		r.holes = holes;
+		r.roughness = roughness;
+		r.wellDepth = wellDepth;
+		r.score = score;
+		r.toppedOut = toppedOut;
+		r.hash = hash;
+		r.piece = fallingPiece;
+		r.type = fallingType;
+		r.orientation = fallingPiece.getOrientation();
+		r.position = fallingPiece.getPosition();
+		// planes shift when some clear, so everything from the lowest one up gets saved
+		r.from = f.cleared > 0 ? f.planes[0] : -1;
+		if(r.from < 0)
+			return;
+		if(r.planeFill.length != height) {
+			r.planeFill = new int[height];
+			r.planeHash = new long[height];
+			r.bits = new long[height * occupancy.getWordsPerPlane()];
+			r.cubes = new int[length * width * height];
+		}
+		occupancy.savePlanes(r.from, r.bits);
+		System.arraycopy(planeFill, r.from, r.planeFill, 0, height - r.from);
+		System.arraycopy(planeHash, r.from, r.planeHash, 0, height - r.from);
+		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++)
+				System.arraycopy(cubes[x][y], r.from, r.cubes, (x * width + y) *
+						height, height - r.from);
+		}
+	}
+
+	private void preview(Features f) {
+		int top = height - SAFE_HEIGHT;
+		int columns = length * width;
+		if(f.heightsOf != this || f.heightsVersion != heightsVersion) {
+			if(f.heights.length != columns) {
+				f.heights = new int[columns];
+				f.affectedStamp = new int[columns];
+			}
+			System.arraycopy(columnHeight, 0, f.heights, 0, columns);
+			f.heightsOf = this;
+			f.heightsVersion = heightsVersion;
+		}
+		if(++f.epoch == Integer.MAX_VALUE) {
+			Arrays.fill(f.affectedStamp, 0);
+			f.epoch = 1;
+		}
+		f.kept = f.changed = f.cleared = 0;
+		int holeChange = 0;
+		for(int i = 0; i < PieceShape.BLOCKS; i++) {
+			int cell = f.cells[i];
+			if(!PackedPoint.inBounds(cell, length, width, height) ||
+					occupancy.isFilled(cell))
+				continue;
+			f.cells[f.kept++] = cell;
+			int column = occupancy.bitIndex(PackedPoint.getX(cell),
+					PackedPoint.getY(cell));
+			int z = PackedPoint.getZ(cell);
+			int h = f.heights[column];
+			if(!isChanged(f, column))
+				f.columns[f.changed++] = column;
+			// filling a hole takes one away, and anything left empty under the new top is one
+			if(z < h) {
+				holeChange--;
+			} else {
+				holeChange += z - h;
+				f.heights[column] = z + 1;
+			}
+		}
+		for(int i = 0; i < f.kept; i++) {
+			int z = PackedPoint.getZ(f.cells[i]);
+			if(z > top || isClearing(f, z))
+				continue;
+			int filling = 0;
+			for(int j = 0; j < f.kept; j++) {
+				if(PackedPoint.getZ(f.cells[j]) == z)
+					filling++;
+			}
+			if(planeFill[z] + filling == columns) {
+				int k = f.cleared++;
+				for(; k > 0 && f.planes[k - 1] > z; k--)
+					f.planes[k] = f.planes[k - 1];
+				f.planes[k] = z;
+			}
+		}
+		if(f.cleared == 0)
+			previewSettled(f, top, holeChange);
+		else
+			previewCleared(f, top, holeChange);
+	}
+
+	// nothing clears, so only the columns it lands in and the ones around them change
+	private void previewSettled(Features f, int top, int holeChange) {
+		int[] after = f.heights;
+		f.holes = holeChange;
+		f.aggregateHeight = f.roughness = f.wellDepth = 0;
+		int affected = 0;
+		for(int c = 0; c < f.changed; c++) {
+			int column = f.columns[c];
+			if(after[column] == columnHeight[column])
+				continue; // only filled holes, so nothing on top moved
+			f.aggregateHeight += after[column] - columnHeight[column];
+			affected = addAffected(f, affected, column);
+			for(int d = 4 * column; d < 4 * column + 4; d++) {
+				int n = neighbours[d];
+				if(n < 0)
+					continue;
+				affected = addAffected(f, affected, n);
+				// edges between two columns that both moved only get counted from the lower one
+				if(n < column && after[n] != columnHeight[n])
+					continue;
+				f.roughness += Math.abs(after[column] - after[n]) -
+						Math.abs(columnHeight[column] - columnHeight[n]);
+			}
+		}
+		for(int a = 0; a < affected; a++) {
+			int column = f.affected[a];
+			f.wellDepth += wellAt(after, column) - wellAt(columnHeight, column);
+		}
+		for(int c = 0; c < f.changed; c++)
+			after[f.columns[c]] = columnHeight[f.columns[c]];
+		f.toppedOut = toppedOut;
+		for(int i = 0; i < f.kept; i++) {
+			if(PackedPoint.getZ(f.cells[i]) == top)
+				f.toppedOut = true;
+		}
+	}
+
+	// planes clear, so every column comes down. still only a pass over the columns, plus
+	// whatever empty cells get uncovered when a column's top cube is cleared away
+	private void previewCleared(Features f, int top, int holeChange) {
+		int[] after = f.heights;
+		int total = 0;
+		for(int column = 0; column < after.length; column++) {
+			int z = after[column] - 1;
+			int x = column % length, y = column / length;
+			while(z >= 0 && (isClearing(f, z) || !filledAfter(f, x, y, z))) {
+				if(!isClearing(f, z))
+					holeChange--; // open to the sky now
+				z--;
+			}
+			int h = z + 1;
+			for(int i = 0; i < f.cleared && f.planes[i] < z + 1; i++)
+				h--;
+			after[column] = h;
+			total += h;
+		}
+		f.aggregateHeight = total - aggregateHeight;
+		f.holes = holeChange;
+		f.roughness = roughnessOf(after) - roughness;
+		f.wellDepth = wellDepthOf(after) - wellDepth;
+		f.heightsOf = null; // every column got written over, so copy them again next time
+		// clears only happen at or below top, so what ends up there comes from this far up
+		int from = top + f.cleared;
+		f.toppedOut = toppedOut;
+		if(from < height) {
+			if(!occupancy.isPlaneEmpty(from))
+				f.toppedOut = true;
+			for(int i = 0; i < f.kept; i++) {
+				if(PackedPoint.getZ(f.cells[i]) == from)
+					f.toppedOut = true;
+			}
+		}
+	}
+
+	// whether an earlier cell in this preview already went in the column
+	private boolean isChanged(Features f, int column) {
+		for(int c = 0; c < f.changed; c++) {
+			if(f.columns[c] == column)
+				return true;
+		}
+		return false;
+	}
+
+	private int addAffected(Features f, int affected, int column) {
+		if(f.affectedStamp[column] == f.epoch)
+			return affected;
+		f.affectedStamp[column] = f.epoch;
+		f.affected[affected] = column;
+		return affected + 1;
+	}
+
+	private boolean isClearing(Features f, int z) {
+		for(int i = 0; i < f.cleared; i++) {
+			if(f.planes[i] == z)
+				return true;
+		}
+		return false;
+	}
+
+	private boolean filledAfter(Features f, int x, int y, int z) {
+		if(occupancy.isFilled(x, y, z))
+			return true;
+		int cell = PackedPoint.pack(x, y, z);
+		for(int i = 0; i < f.kept; i++) {
+			if(f.cells[i] == cell)
+				return true;
+		}
+		return false;
+	}
+
+	private int wellAt(int[] heights, int column) {
+		int lowest = height;
+		for(int d = 4 * column; d < 4 * column + 4; d++) {
+			int n = neighbours[d];
+			if(n >= 0 && heights[n] < lowest)
+				lowest = heights[n];
+		}
+		return Math.max(0, lowest - heights[column]);
+	}
+
+	private int roughnessOf(int[] heights) {
+		int total = 0;
+		for(int column = 0; column < heights.length; column++) {
+			// just the ones in +x and +y, so each edge counts once
+			int n = neighbours[4 * column + 1];
+			if(n >= 0)
+				total += Math.abs(heights[column] - heights[n]);
+			n = neighbours[4 * column + 3];
+			if(n >= 0)
+				total += Math.abs(heights[column] - heights[n]);
+		}
+		return total;
+	}
+
+	private int wellDepthOf(int[] heights) {
+		int total = 0;
+		for(int column = 0; column < heights.length; column++)
+			total += wellAt(heights, column);
+		return total;
+	}
+
+	// everything that follows from the occupancy, worked out the slow way after it all changed
+	private void recount() {
+		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++) {
+				int h = height;
+				while(h > 0 && !occupancy.isFilled(x, y, h - 1))
+					h--;
+				columnHeight[occupancy.bitIndex(x, y)] = h;
+			}
+		}
+		recountFeatures();
+		heightsVersion++;
+		toppedOut = false;
+		checkTopOut();
 	}
 
-	private boolean isObstructed() {
-		IntPoint[] blocks = fallingPiece.getBlocks();
-		for(int i = 0; i < 4; i++) {
-			IntPoint p = blocks[i];
-			if(!p.inBounds(length, width, height))
-				return false;
-			if(cubes[p.getX()][p.getY()][p.getZ()] != Piece.NOTHING) {
-				return false;
+	private void recountFeatures() {
+		aggregateHeight = holes = 0;
+		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++) {
+				int h = columnHeight[occupancy.bitIndex(x, y)];
+				aggregateHeight += h;
+				for(int z = 0; z < h; z++) {
+					if(!occupancy.isFilled(x, y, z))
+						holes++;
+				}
 			}
 		}
+		roughness = roughnessOf(columnHeight);
+		wellDepth = wellDepthOf(columnHeight);
+	}
+
+	private void checkTopOut() {
+		if(!occupancy.isPlaneEmpty(height - SAFE_HEIGHT))
+			toppedOut = true;
+	}
+
+	private boolean pieceMoved() {
+		int[] before = fallingCells;
+		fallingCells = previousCells;
+		previousCells = before;
+		fallingPiece.getBlocks(fallingCells);
+		if(listener != null) {
+			fireCells(previousCells);
+			fireCells(fallingCells);
+		}
 		return true;
 	}
+
+	private void fireCells(int[] cells) {
+		for(int cell : cells)
+			listener.cellChanged(PackedPoint.getX(cell), PackedPoint.getY(cell),
+					PackedPoint.getZ(cell));
+	}
+
+	private Occupancy.Footprint[] getFootprints(PieceShape shape) {
+		Occupancy.Footprint[] table = footprints.get(shape);
+		if(table == null) {
+			table = new Occupancy.Footprint[shape.getOrientations()];
+			footprints.put(shape, table);
+		}
+		return table;
+	}
+
+	// built once per orientation, the first time it shows up
+	private Occupancy.Footprint getFootprint(int orientation) {
+		if(fallingFootprints[orientation] == null) {
+			fallingFootprints[orientation] = occupancy.footprint(
+					fallingPiece.getShape().getCells(orientation));
+		}
+		return fallingFootprints[orientation];
+	}
 		
 	private Piece getRandomPiece() {
-		switch(rand.nextInt(8)) {
-		case 0:
-			return new Line(start);
-		case 1:
-			return new L(start);
-		case 2:
-			return new Squiggly(start);
-		case 3:
-			return new Square(start);
-		case 4:
-			return new T(start);
-		case 5:
-			return new Hook_L(start);
-		case 6:
-			return new Hook_R(start);
-		case 7:
-			return new Corner(start);
-		default:
-			return null;
-		}
-	}
-
-	private boolean checkAllRows() {
-		boolean changed = false;
+		nextType = generator.next();
+		return PieceType.create(nextType, start);
+	}
+
+	private int checkAllRows() {
 		int numberChanged = 0;
-		//goes down so that rows aren't skipped
-		for(int z = height - SAFE_HEIGHT; z >= 0; z--) {
-			if(checkSingleRow(z)) {
-				changed = true;
+		int lowest = 0;
+		int to = 0; // where the next surviving plane goes
+		clearedBelow[0] = 0;
+		// goes up so every surviving plane only moves once
+		for(int z = 0; z < height; z++) {
+			if(z <= height - SAFE_HEIGHT && checkSingleRow(z)) {
+				if(numberChanged == 0)
+					lowest = z;
 				numberChanged++;
-				for(int i = z + 1; i < height; i++) {
-					// z + 1 so that the deleted plane is overwritten first
-					lowerPlane(i);
-				}
+				clearedBelow[z + 1] = numberChanged;
+				continue;
 			}
+			clearedBelow[z + 1] = numberChanged;
+			if(to != z)
+				movePlane(z, to);
+			to++;
 		}
+		if(numberChanged == 0)
+			return 0;
+		for(; to < height; to++) {
+			if(planeFill[to] != 0)
+				clearPlane(to);
+		}
+		lowerColumns();
+		rehash();
 		score += 100 * numberChanged * numberChanged;
-		return changed;
+		if(listener != null)
+			listener.planesChanged(lowest);
+		return numberChanged;
+	}
+
+	private void lowerColumns() {
+		for(int x = 0; x < length; x++) {
+			for(int y = 0; y < width; y++) {
+				int column = occupancy.bitIndex(x, y);
+				int h = columnHeight[column];
+				h -= clearedBelow[h];
+				// if the top cube got cleared, look for the next one down
+				while(h > 0 && !occupancy.isFilled(x, y, h - 1))
+					h--;
+				columnHeight[column] = h;
+			}
+		}
 	}
 
 	private boolean checkSingleRow(int z) {
+		return planeFill[z] == length * width;
+	}
+
+	private void movePlane(int from, int to) {
 		for(int x = 0; x < length; x++) {
 			for(int y = 0; y < width; y++) {
-				if(cubes[x][y][z] == Piece.NOTHING)
-					return false;
+				cubes[x][y][to] = cubes[x][y][from];
 			}
 		}
-		return true;
+		occupancy.copyPlane(from, to);
+		planeFill[to] = planeFill[from];
+		planeHash[to] = planeHash[from];
 	}
 
-	private void lowerPlane(int z) {
+	private void clearPlane(int z) {
 		for(int x = 0; x < length; x++) {
-			for(int y = 0; y < length; y++) {
-				cubes[x][y][z - 1] = cubes[x][y][z];
+			for(int y = 0; y < width; y++) {
+				cubes[x][y][z] = Piece.NOTHING;
 			}
 		}
+		occupancy.clearPlane(z);
+		planeFill[z] = 0;
+		planeHash[z] = 0;
+	}
+
+	// after planes moved, every one of them sits at a new height
+	private void rehash() {
+		hash = 0;
+		for(int z = 0; z < height; z++)
+			hash ^= planeHash[z] * planeKeys[z];
+	}
+
+	// splitmix64's finisher, for keys that come out the same every run
+	private static long mix(long z) {
+		z += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
 	}
 	
 	public long getScore() {
 		return score;
 	}
+
+	//what a lock changed, for undoLock
+	private static class LockRecord {
+
+		private int[] cells = new int[PieceShape.BLOCKS]; // the ones it filled
+		private int kept;
+		private int[] columnHeight = new int[0];
+		private int aggregateHeight, holes, roughness, wellDepth;
+		private long score;
+		private boolean toppedOut;
+		private long hash;
+		private Piece piece;
+		private int type, orientation, position;
+		private int from; // the lowest plane that cleared, or -1
+		private long[] bits; // from there up, as they were
+		private int[] planeFill = new int[0];
+		private long[] planeHash;
+		private int[] cubes;
+	}
 }
@@ -0,0 +1,9 @@
+package engine;
+
+//lets whoever is drawing the chamber find out what changed, instead of looking at everything
+public interface ChamberListener {
+
+	public void cellChanged(int x, int y, int z);
+
+	public void planesChanged(int lowest); // every plane from lowest up
+}
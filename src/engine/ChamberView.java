@@ -0,0 +1,21 @@
+package engine;
+
+//read-only look at a chamber, so drawing it doesn't mean copying it
+public interface ChamberView {
+
+	public int getLength();
+
+	public int getWidth();
+
+	public int getHeight();
+
+	public int colorAt(int x, int y, int z); // falling piece included
+
+	public boolean isFallingPiece(int x, int y, int z);
+
+	public IntPoint[] getFallingBlocks(); // empty if nothing is falling
+
+	public int getFallingCells(int[] into); // packed, returns how many. no allocating
+
+	public int[][][] snapshot(); // a copy, for when you really want to keep it
+}
@@ -1,11 +1,28 @@
-package engine;
-
-//everything is static on purpose, since i can't make global variables, and passing instances would be a pain
-public class CheatCodes {
-
-	public static boolean QEUPDOWN = false;
-	public static boolean OVER9000 = false;
-	public static boolean LOCKENTER = false;
-	public static boolean GRAYVIEW = false;
-	
-}
+package engine;
+
+//one set per window, so games running somewhere else don't see them
+public class CheatCodes {
+
+	public boolean qeUpDown = false;
+	public boolean over9000 = false;
+	public boolean lockEnter = false;
+	public boolean grayView = false;
+	public boolean faceCount = false; // how many faces get drawn, for seeing what culling saves
+	
+	// returns whether the code was a real one
+	public boolean toggle(String code) {
+		if(code.equals("QEUPDOWN"))
+			qeUpDown = !qeUpDown;
+		else if(code.equals("OVER9000"))
+			over9000 = !over9000;
+		else if(code.equals("LOCKENTER"))
+			lockEnter = !lockEnter;
+		else if(code.equals("GRAYVIEW"))
+			grayView = !grayView;
+		else if(code.equals("FACECOUNT"))
+			faceCount = !faceCount;
+		else
+			return false;
+		return true;
+	}
+}
@@ -0,0 +1,63 @@
+package engine;
+
+import engine.pieces.PieceShape;
+
+//the numbers an evaluator looks at: how high the columns are, how many holes there are, how rough
+//the top is and how deep the wells go. a chamber fills one in with its own, or with the changes
+//a lock would make. the chamber also does its working in here, so every thread needs its own
+public class Features {
+
+	int aggregateHeight, holes, roughness, wellDepth;
+	int cleared;
+	boolean toppedOut;
+
+	// scratch for the chamber
+	int[] cells = new int[PieceShape.BLOCKS];
+	int kept; // cells that land inside the chamber on something empty
+	int[] columns = new int[PieceShape.BLOCKS]; // the ones the cells are in
+	int changed;
+	int[] affected = new int[5 * PieceShape.BLOCKS]; // those and their neighbours, for wells
+	int[] affectedStamp = new int[0]; // by column, the last preview that added it there
+	int epoch = 0;
+	int[] planes = new int[PieceShape.BLOCKS]; // the ones that clear, lowest first
+	// a copy of the chamber's column heights, which a preview changes and then puts back
+	int[] heights = new int[0];
+	Chamber heightsOf = null;
+	long heightsVersion;
+
+	// all the column heights added up
+	public int getAggregateHeight() {
+		return aggregateHeight;
+	}
+
+	// empty cells with something above them in the same column
+	public int getHoles() {
+		return holes;
+	}
+
+	// how much neighbouring columns differ, along x and along y
+	public int getRoughness() {
+		return roughness;
+	}
+
+	// how far columns sit below all their neighbours, the walls counting as full height
+	public int getWellDepth() {
+		return wellDepth;
+	}
+
+	// planes a lock would clear. always 0 for a chamber's own
+	public int getCleared() {
+		return cleared;
+	}
+
+	public boolean isToppedOut() {
+		return toppedOut;
+	}
+
+	@Override
+	public String toString() {
+		return "height " + aggregateHeight + ", holes " + holes + ", roughness " +
+				roughness + ", wells " + wellDepth + ", cleared " + cleared +
+				(toppedOut ? ", topped out" : "");
+	}
+}
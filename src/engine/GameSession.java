@@ -0,0 +1,147 @@
+package engine;
+
+//one game from start to top out, with no window attached. the gui and the bots both drive it
+public class GameSession {
+
+	// the commands something playing the game can send
+	public static final int MOVE_X_PLUS = 0;
+	public static final int MOVE_X_MINUS = 1;
+	public static final int MOVE_Y_PLUS = 2;
+	public static final int MOVE_Y_MINUS = 3;
+	public static final int MOVE_Z_PLUS = 4;
+	public static final int MOVE_Z_MINUS = 5;
+	public static final int ROTATE_X_PLUS = 6;
+	public static final int ROTATE_X_MINUS = 7;
+	public static final int ROTATE_Y_PLUS = 8;
+	public static final int ROTATE_Y_MINUS = 9;
+	public static final int ROTATE_Z_PLUS = 10;
+	public static final int ROTATE_Z_MINUS = 11;
+	public static final int SOFT_DROP = 12;
+	public static final int HARD_DROP = 13;
+	public static final int COMMANDS = 14;
+
+	private Chamber chamber;
+	private boolean lockOnLand = true; // off with the LOCKENTER cheat
+
+	private long ticks = 0;
+	private long piecesLocked = 0;
+	private long planesCleared = 0;
+
+	public GameSession(int length, int width, int height) {
+		this(new Chamber(length, width, height));
+	}
+
+	public GameSession(Chamber chamber) {
+		this.chamber = chamber;
+	}
+
+	public Chamber getChamber() {
+		return chamber;
+	}
+
+	public void setLockOnLand(boolean lockOnLand) {
+		this.lockOnLand = lockOnLand;
+	}
+
+	public boolean isLockOnLand() {
+		return lockOnLand;
+	}
+
+	// for picking a game back up from a replay keyframe
+	public void restoreCounters(long ticks, long piecesLocked,
+			long planesCleared) {
+		this.ticks = ticks;
+		this.piecesLocked = piecesLocked;
+		this.planesCleared = planesCleared;
+	}
+
+	// returns whether the command did anything
+	public boolean command(int command) {
+		if(isOver())
+			return false;
+		switch(command) {
+			case MOVE_X_PLUS:
+				return chamber.moveXPlus();
+			case MOVE_X_MINUS:
+				return chamber.moveXMinus();
+			case MOVE_Y_PLUS:
+				return chamber.moveYPlus();
+			case MOVE_Y_MINUS:
+				return chamber.moveYMinus();
+			case MOVE_Z_PLUS:
+				return chamber.moveZPlus();
+			case MOVE_Z_MINUS:
+				return chamber.moveZMinus();
+			case ROTATE_X_PLUS:
+				return chamber.rotateXPlus();
+			case ROTATE_X_MINUS:
+				return chamber.rotateXMinus();
+			case ROTATE_Y_PLUS:
+				return chamber.rotateYPlus();
+			case ROTATE_Y_MINUS:
+				return chamber.rotateYMinus();
+			case ROTATE_Z_PLUS:
+				return chamber.rotateZPlus();
+			case ROTATE_Z_MINUS:
+				return chamber.rotateZMinus();
+			case SOFT_DROP:
+				return softDrop();
+			case HARD_DROP:
+				return hardDrop();
+			default:
+				throw new IllegalArgumentException("no command " + command);
+		}
+	}
+
+	// what the timer does: one step down, and lock if it can't go any further
+	public boolean tick() {
+		if(isOver())
+			return false;
+		ticks++;
+		return softDrop();
+	}
+
+	// returns whether a new piece came in
+	public boolean softDrop() {
+		if(isOver())
+			return false;
+		if(chamber.moveZMinus() || !lockOnLand)
+			return false;
+		lockAndSpawn();
+		return true;
+	}
+
+	public boolean hardDrop() {
+		if(isOver())
+			return false;
+		chamber.dropPiece();
+		lockAndSpawn();
+		return true;
+	}
+
+	private void lockAndSpawn() {
+		planesCleared += chamber.lockPiece();
+		piecesLocked++;
+		chamber.nextPiece();
+	}
+
+	public boolean isOver() {
+		return chamber.isToppedOut();
+	}
+
+	public long getScore() {
+		return chamber.getScore();
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getPiecesLocked() {
+		return piecesLocked;
+	}
+
+	public long getPlanesCleared() {
+		return planesCleared;
+	}
+}
@@ -0,0 +1,168 @@
+package engine;
+
+//one bit per cell, one plane at a time. planes up to 8x8 fit in a single long, bigger ones take a few
+public class Occupancy {
+
+	private int length;
+	private int width;
+	private int height;
+	private int words; // longs per plane
+
+	private long[] bits; // plane z starts at z * words
+	private long[] full; // what a full plane looks like
+
+	public Occupancy(int length, int width, int height) {
+		this.length = length;
+		this.width = width;
+		this.height = height;
+		words = (length * width + 63) / 64;
+		bits = new long[words * height];
+		full = new long[words];
+		for(int i = 0; i < length * width; i++)
+			full[i >> 6] |= 1L << i;
+	}
+
+	public int getWordsPerPlane() {
+		return words;
+	}
+
+	public boolean isSingleWord() {
+		return words == 1;
+	}
+
+	// x changes fastest so moving along x is a shift by one
+	public int bitIndex(int x, int y) {
+		return y * length + x;
+	}
+
+	public boolean isFilled(int x, int y, int z) {
+		int i = bitIndex(x, y);
+		return (bits[z * words + (i >> 6)] & (1L << i)) != 0;
+	}
+
+	public void set(int x, int y, int z) {
+		int i = bitIndex(x, y);
+		bits[z * words + (i >> 6)] |= 1L << i;
+	}
+
+	public void clear(int x, int y, int z) {
+		int i = bitIndex(x, y);
+		bits[z * words + (i >> 6)] &= ~(1L << i);
+	}
+
+	public long getWord(int z, int word) {
+		return bits[z * words + word];
+	}
+
+	public boolean isPlaneFull(int z) {
+		for(int w = 0; w < words; w++) {
+			if(bits[z * words + w] != full[w])
+				return false;
+		}
+		return true;
+	}
+
+	public boolean isPlaneEmpty(int z) {
+		for(int w = 0; w < words; w++) {
+			if(bits[z * words + w] != 0)
+				return false;
+		}
+		return true;
+	}
+
+	public void copyPlane(int from, int to) {
+		System.arraycopy(bits, from * words, bits, to * words, words);
+	}
+
+	// the other one has to be the same size
+	public void copyFrom(Occupancy other) {
+		System.arraycopy(other.bits, 0, bits, 0, bits.length);
+	}
+
+	// copies planes from z up to the top into saved, for putting back with loadPlanes
+	public void savePlanes(int z, long[] saved) {
+		savePlanes(z, saved, 0);
+	}
+
+	public void savePlanes(int z, long[] saved, int offset) {
+		System.arraycopy(bits, z * words, saved, offset, (height - z) * words);
+	}
+
+	public void loadPlanes(int z, long[] saved) {
+		loadPlanes(z, saved, 0);
+	}
+
+	public void loadPlanes(int z, long[] saved, int offset) {
+		System.arraycopy(saved, offset, bits, z * words, (height - z) * words);
+	}
+
+	public void clearPlane(int z) {
+		for(int w = 0; w < words; w++)
+			bits[z * words + w] = 0;
+	}
+
+	public boolean isFilled(int cell) {
+		return isFilled(PackedPoint.getX(cell), PackedPoint.getY(cell),
+				PackedPoint.getZ(cell));
+	}
+
+	// true if the footprint can sit at position without leaving the chamber or hitting anything
+	public boolean fits(Footprint f, int position) {
+		int x = PackedPoint.getX(position);
+		int y = PackedPoint.getY(position);
+		int z = PackedPoint.getZ(position);
+		if(x + f.minX < 0 || x + f.maxX >= length)
+			return false;
+		if(y + f.minY < 0 || y + f.maxY >= width)
+			return false;
+		if(z + f.minZ < 0 || z + f.maxZ >= height)
+			return false;
+		if(words == 1) {
+			int shift = bitIndex(x + f.minX, y + f.minY);
+			int base = z + f.minZ;
+			for(int k = 0; k < f.masks.length; k++) {
+				if((bits[base + k] & (f.masks[k] << shift)) != 0)
+					return false;
+			}
+			return true;
+		}
+		for(int i = 0; i < f.cells.length; i++) {
+			if(isFilled(PackedPoint.add(position, f.cells[i])))
+				return false;
+		}
+		return true;
+	}
+
+	public Footprint footprint(int... cells) {
+		return new Footprint(cells);
+	}
+
+	//a piece's cells as one mask per plane, built against this chamber's row length
+	public class Footprint {
+
+		private int[] cells; // packed offsets from the piece's center
+		private int minX, maxX, minY, maxY, minZ, maxZ;
+		private long[] masks; // lowest plane first, shifted so the corner is bit 0
+
+		private Footprint(int[] cells) {
+			this.cells = cells.clone();
+			minX = minY = minZ = Integer.MAX_VALUE;
+			maxX = maxY = maxZ = Integer.MIN_VALUE;
+			for(int c : cells) {
+				minX = Math.min(minX, PackedPoint.getX(c));
+				maxX = Math.max(maxX, PackedPoint.getX(c));
+				minY = Math.min(minY, PackedPoint.getY(c));
+				maxY = Math.max(maxY, PackedPoint.getY(c));
+				minZ = Math.min(minZ, PackedPoint.getZ(c));
+				maxZ = Math.max(maxZ, PackedPoint.getZ(c));
+			}
+			masks = new long[maxZ - minZ + 1];
+			if(words == 1) {
+				for(int c : cells) {
+					masks[PackedPoint.getZ(c) - minZ] |= 1L << bitIndex(
+							PackedPoint.getX(c) - minX, PackedPoint.getY(c) - minY);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package engine;
+
+//x, y and z squeezed into one int, so hot loops don't have to make IntPoints
+public final class PackedPoint {
+
+	private static final int BITS = 10; // per axis, so -512 to 511
+	private static final int MASK = (1 << BITS) - 1;
+	private static final int BIAS = 1 << (BITS - 1); // so negatives fit
+
+	public static final int ZERO = pack(0, 0, 0);
+	public static final int LEFT = pack(-1, 0, 0);
+	public static final int RIGHT = pack(1, 0, 0);
+	public static final int FRONT = pack(0, 1, 0);
+	public static final int BACK = pack(0, -1, 0);
+	public static final int UP = pack(0, 0, 1);
+	public static final int DOWN = pack(0, 0, -1);
+
+	private PackedPoint() {
+	}
+
+	public static int pack(int x, int y, int z) {
+		return ((x + BIAS) << (2 * BITS)) | ((y + BIAS) << BITS) | (z + BIAS);
+	}
+
+	public static int getX(int p) {
+		return ((p >>> (2 * BITS)) & MASK) - BIAS;
+	}
+
+	public static int getY(int p) {
+		return ((p >>> BITS) & MASK) - BIAS;
+	}
+
+	public static int getZ(int p) {
+		return (p & MASK) - BIAS;
+	}
+
+	// every axis carries its own bias, so adding takes one of them back off
+	public static int add(int p, int q) {
+		return p + q - ZERO;
+	}
+
+	public static int subtract(int p, int q) {
+		return p - q + ZERO;
+	}
+
+	public static boolean inBounds(int p, int length, int width, int height) {
+		int x = getX(p), y = getY(p), z = getZ(p);
+		return 0 <= x && x < length && 0 <= y && y < width && 0 <= z &&
+				z < height;
+	}
+
+	public static int fromIntPoint(IntPoint p) {
+		return pack(p.getX(), p.getY(), p.getZ());
+	}
+
+	public static IntPoint toIntPoint(int p) {
+		return new IntPoint(getX(p), getY(p), getZ(p));
+	}
+
+	public static String toString(int p) {
+		return "(" + getX(p) + ", " + getY(p) + ", " + getZ(p) + ")";
+	}
+}
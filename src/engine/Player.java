@@ -0,0 +1,14 @@
+package engine;
+
+//anything that can play a game on its own, one command at a time
+public interface Player {
+
+	// one of the commands in GameSession
+	public int nextCommand(GameSession session);
+
+	// every game gets a fresh player, so players can keep whatever state they like
+	public interface Factory {
+
+		public Player newPlayer(long seed);
+	}
+}
@@ -0,0 +1,25 @@
+package engine;
+
+import java.util.Random;
+
+//mashes keys. good for testing and for seeing how fast the engine itself is
+public class RandomPlayer implements Player {
+
+	public static final Player.Factory FACTORY = new Player.Factory() {
+		@Override
+		public Player newPlayer(long seed) {
+			return new RandomPlayer(seed);
+		}
+	};
+
+	private Random rand;
+
+	public RandomPlayer(long seed) {
+		rand = new Random(seed);
+	}
+
+	@Override
+	public int nextCommand(GameSession session) {
+		return rand.nextInt(GameSession.COMMANDS);
+	}
+}
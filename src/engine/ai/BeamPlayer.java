@@ -0,0 +1,271 @@
+package engine.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import engine.Chamber;
+import engine.Features;
+import engine.GameSession;
+import engine.Player;
+import engine.pieces.UniformGenerator;
+
+//plans several pieces ahead by keeping only the best few chambers after each one, however many
+//spots there were. the falling piece and the next one are known, and past those it deals pieces
+//from its own generator, the same ones for every chamber at a level so they still compete fairly.
+//chambers are kept as encoded occupancy in a fixed arena, so the memory is the same however deep
+//it looks, and each level's chambers get expanded across the pool
+public class BeamPlayer extends HeuristicPlayer {
+
+	public static final Player.Factory FACTORY = new Player.Factory() {
+		@Override
+		public Player newPlayer(long seed) {
+			return new BeamPlayer(new Heuristic(), seed);
+		}
+	};
+
+	private static final int STATES_PER_LEAF = 2; // chambers a fork-join leaf expands
+	// games are dealt from the same seed the player gets, so the dealer's stream is moved off it.
+	// otherwise the pieces it plans with would be the real ones still to come
+	private static final long DEALER_STREAM = 0xD1B54A32D192ED03L;
+
+	private int depth = 4; // pieces planned, the falling one included
+	private int width = 16; // chambers kept at each level
+	private UniformGenerator dealer;
+	private int[] types = new int[0]; // the piece each level places
+
+	private Chamber chamber; // the real one
+	private int stateLength; // longs per encoded chamber
+	private long[] arena = new long[0]; // the level being expanded, then the one it makes
+	private long[] nextArena = new long[0];
+	private Worker[] workers = new Worker[0];
+	private int[] top = new int[0];
+
+	// the chambers of the level being made, as the children they came from
+	private int states;
+	private int[] pendingParent = new int[0];
+	private int[] pendingOrientation = new int[0], pendingPosition = new int[0];
+	private double[] pendingValue = new double[0]; // what the locks so far added up to
+	private int[] pendingOrigin = new int[0]; // the falling piece's placement it started from
+
+	// up to width children for every chamber, at chamber * width
+	private int[] childOrientation = new int[0], childPosition = new int[0];
+	private double[] childValue = new double[0];
+	private int[] childOrigin = new int[0];
+
+	private long nodes = 0; // placements scored
+	private long searchNanos = 0;
+
+	public BeamPlayer(Heuristic heuristic, long seed) {
+		super(heuristic);
+		dealer = new UniformGenerator(seed ^ DEALER_STREAM);
+	}
+
+	// plays a game at each width and prints what it cost, for picking one that fits the time
+	public static void main(String[] args) {
+		int pieces = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+		int depth = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+		ForkJoinPool pool = ForkJoinPool.commonPool();
+		for(int pass = 0; pass < 2; pass++) { // the first one is warm up
+			for(int width = 2; width <= 64; width *= 2) {
+				BeamPlayer player = new BeamPlayer(new Heuristic(), 1);
+				player.setPool(pool);
+				player.setDepth(depth);
+				player.setWidth(width);
+				GameSession session = new GameSession(new Chamber(6, 6, 12, 1L));
+				while(!session.isOver() && session.getPiecesLocked() < pieces)
+					session.command(player.nextCommand(session));
+				System.out.println(String.format(
+						"width %d: %d pieces, score %d, %.2f ms mean, %.0f nodes/s",
+						width, session.getPiecesLocked(), session.getChamber().getScore(),
+						player.getDecisionNanos() / 1e6 / Math.max(1, player.getDecisions()),
+						player.getNodesPerSecond()));
+			}
+		}
+	}
+
+	public void setDepth(int depth) {
+		this.depth = Math.max(1, depth);
+	}
+
+	public void setWidth(int width) {
+		this.width = Math.max(1, width);
+		chamber = null;
+	}
+
+	public long getNodes() {
+		return nodes;
+	}
+
+	public double getNodesPerSecond() {
+		return searchNanos == 0 ? 0 : nodes * 1e9 / searchNanos;
+	}
+
+	@Override
+	protected int choose(Chamber c, int count) {
+		long start = System.nanoTime();
+		double[] scores = score(count);
+		PlacementFinder finder = getFinder();
+		prepare(c);
+		if(types.length < depth)
+			types = new int[depth];
+		types[0] = c.getFallingType();
+		if(depth > 1)
+			types[1] = c.getNextType();
+		for(int p = 2; p < depth; p++)
+			types[p] = dealer.next();
+
+		// the real chamber is the only one at the root, and its children are already scored
+		c.encode(arena, 0);
+		states = 1;
+		int found = best(scores, count, width, top);
+		if(found == 0)
+			return super.choose(c, count); // everything tops out
+		for(int k = 0; k < width; k++) {
+			if(k < found) {
+				int i = top[k];
+				childOrientation[k] = finder.getOrientation(i);
+				childPosition[k] = finder.getPosition(i);
+				childValue[k] = scores[i];
+				childOrigin[k] = i;
+			} else {
+				childValue[k] = Double.NEGATIVE_INFINITY;
+			}
+		}
+		nodes += count;
+
+		int chosen = top[0];
+		for(int p = 1; p < depth; p++) {
+			found = best(childValue, states * width, width, top);
+			if(found == 0)
+				break; // nothing gets this far without topping out
+			for(int k = 0; k < found; k++) {
+				int child = top[k];
+				pendingParent[k] = child / width;
+				pendingOrientation[k] = childOrientation[child];
+				pendingPosition[k] = childPosition[child];
+				pendingValue[k] = childValue[child];
+				pendingOrigin[k] = childOrigin[child];
+			}
+			chosen = pendingOrigin[0];
+			states = found;
+			if(getPool() == null)
+				expand(0, states, workers[0], p);
+			else
+				getPool().invoke(new Expand(0, states, p));
+			for(Worker w : workers) {
+				nodes += w.nodes;
+				w.nodes = 0;
+			}
+			long[] swap = arena;
+			arena = nextArena;
+			nextArena = swap;
+		}
+		found = best(childValue, states * width, 1, top);
+		if(found > 0)
+			chosen = childOrigin[top[0]];
+		searchNanos += System.nanoTime() - start;
+		return chosen;
+	}
+
+	// everything is sized for the chamber and the width once, and then just reused
+	private void prepare(Chamber c) {
+		if(chamber == c)
+			return;
+		chamber = c;
+		stateLength = c.getEncodedLength();
+		arena = new long[width * stateLength];
+		nextArena = new long[width * stateLength];
+		top = new int[width];
+		pendingParent = new int[width];
+		pendingOrientation = new int[width];
+		pendingPosition = new int[width];
+		pendingValue = new double[width];
+		pendingOrigin = new int[width];
+		childOrientation = new int[width * width];
+		childPosition = new int[width * width];
+		childValue = new double[width * width];
+		childOrigin = new int[width * width];
+		workers = new Worker[(width + STATES_PER_LEAF - 1) / STATES_PER_LEAF];
+		for(int l = 0; l < workers.length; l++)
+			workers[l] = new Worker(c);
+	}
+
+	// makes the pending chambers from their parents, then finds their best children
+	private void expand(int from, int to, Worker w, int piece) {
+		for(int slot = from; slot < to; slot++)
+			w.expand(slot, piece);
+	}
+
+	//a chamber to decode into and everything to score its placements with
+	private class Worker {
+
+		private Chamber chamber;
+		private PlacementFinder finder = new PlacementFinder();
+		private Features features = new Features();
+		private double[] scores = new double[64];
+		private int[] top = new int[width];
+		private long nodes = 0;
+
+		public Worker(Chamber real) {
+			chamber = new Chamber(real);
+		}
+
+		public void expand(int slot, int piece) {
+			chamber.decode(arena, pendingParent[slot] * stateLength);
+			chamber.spawn(types[piece - 1]);
+			chamber.place(pendingOrientation[slot], pendingPosition[slot]);
+			chamber.lockPiece();
+			chamber.encode(nextArena, slot * stateLength);
+
+			chamber.spawn(types[piece]);
+			int count = finder.find(chamber);
+			if(scores.length < count)
+				scores = new double[Math.max(count, 2 * scores.length)];
+			for(int i = 0; i < count; i++) {
+				chamber.previewLock(finder.getOrientation(i), finder.getPosition(i),
+						features);
+				scores[i] = getHeuristic().evaluate(features);
+			}
+			nodes += count;
+			int found = best(scores, count, width, top);
+			int base = slot * width;
+			for(int k = 0; k < width; k++) {
+				if(k < found) {
+					int i = top[k];
+					childOrientation[base + k] = finder.getOrientation(i);
+					childPosition[base + k] = finder.getPosition(i);
+					childValue[base + k] = pendingValue[slot] + scores[i];
+					childOrigin[base + k] = pendingOrigin[slot];
+				} else {
+					childValue[base + k] = Double.NEGATIVE_INFINITY;
+				}
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class Expand extends RecursiveAction {
+
+		private int from, to, piece;
+
+		public Expand(int from, int to, int piece) {
+			this.from = from;
+			this.to = to;
+			this.piece = piece;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= STATES_PER_LEAF) {
+				expand(from, to, workers[from / STATES_PER_LEAF], piece);
+				return;
+			}
+			// split on a leaf boundary, so every leaf keeps its own worker
+			int middle = (from + to) >>> 1;
+			middle -= middle % STATES_PER_LEAF;
+			if(middle == from)
+				middle += STATES_PER_LEAF;
+			invokeAll(new Expand(from, middle, piece), new Expand(middle, to, piece));
+		}
+	}
+}
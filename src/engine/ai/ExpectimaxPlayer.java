@@ -0,0 +1,289 @@
+package engine.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.RecursiveAction;
+
+import engine.Chamber;
+import engine.Features;
+import engine.Player;
+import engine.pieces.PieceType;
+
+//looks further ahead than the heuristic bot. for the best few spots for the falling piece it
+//tries the best few for the next one, which is known, and then averages over every piece that
+//could come after that. the search happens on copies of the chamber that lock pieces and undo
+//them in place, so however deep it goes the memory stays the same.
+//the chance nodes, one for each pair of spots, are what gets split across the pool.
+//what a piece can do from a chamber only depends on the chamber, so the values get remembered by
+//its hash in a table every search shares, and again for the decisions after
+public class ExpectimaxPlayer extends HeuristicPlayer {
+
+	public static final Player.Factory FACTORY = new Player.Factory() {
+		@Override
+		public Player newPlayer(long seed) {
+			return new ExpectimaxPlayer(new Heuristic());
+		}
+	};
+
+	private static final int NODES_PER_LEAF = 2; // chance nodes a fork-join leaf works through
+	private static final int TABLE_SIZE = 1 << 16;
+
+	private int lookahead = 2; // pieces after the falling one. the first is known, the rest aren't
+	private int beam = 6; // spots tried for the falling piece
+	private int nextBeam = 4; // spots tried for each piece after it
+	private TranspositionTable table = new TranspositionTable(TABLE_SIZE);
+
+	private Chamber chamber; // the real one, read by every search at once
+	private Search root; // the first two levels, on the caller's thread
+	private Search[] searches = new Search[0]; // one per leaf
+	private int[] top = new int[0]; // the falling piece's best spots, best first
+	private double[] values = new double[0]; // by spot in top
+
+	// one per chance node
+	private int nodes;
+	private int[] nodeSpot = new int[0]; // which of top it's under
+	private int[] nodeOrientation = new int[0], nodePosition = new int[0]; // the next piece's spot
+	private double[] nodeBase = new double[0]; // what the two locks scored
+	private double[] nodeValue = new double[0];
+
+	public ExpectimaxPlayer(Heuristic heuristic) {
+		super(heuristic);
+	}
+
+	// at least 1. past 2 each extra piece costs another factor of nextBeam * 8
+	public void setLookahead(int lookahead) {
+		this.lookahead = Math.max(1, lookahead);
+		table.clear();
+		root = null;
+		searches = new Search[0];
+	}
+
+	public void setBeam(int beam, int nextBeam) {
+		this.beam = Math.max(1, beam);
+		this.nextBeam = Math.max(1, nextBeam);
+		table.clear();
+		root = null;
+		searches = new Search[0];
+	}
+
+	// players with the same heuristic and settings can share one. it gets cleared here
+	public void setTable(TranspositionTable table) {
+		this.table = table;
+		table.clear();
+	}
+
+	public TranspositionTable getTable() {
+		return table;
+	}
+
+	@Override
+	protected int choose(Chamber c, int count) {
+		double[] scores = score(count);
+		PlacementFinder finder = getFinder();
+		if(top.length < beam) {
+			top = new int[beam];
+			values = new double[beam];
+		}
+		int spots = best(scores, count, beam, top);
+		if(spots == 0)
+			return super.choose(c, count); // everything tops out
+		if(root == null || chamber != c) {
+			chamber = c;
+			root = new Search(c);
+			searches = new Search[0];
+		}
+		root.chamber.copyFrom(c);
+		root.chamber.setUndoable(true);
+
+		// the next piece is known, so the first two levels are just maxes
+		nodes = 0;
+		for(int s = 0; s < spots; s++) {
+			int i = top[s];
+			values[s] = Double.NEGATIVE_INFINITY;
+			root.chamber.place(finder.getOrientation(i), finder.getPosition(i));
+			root.chamber.lockPiece();
+			root.chamber.spawn(c.getNextType());
+			if(lookahead == 1) {
+				values[s] = scores[i] + root.best(1, 0);
+			} else {
+				PlacementFinder next = root.finders[1];
+				int n = next.find(root.chamber);
+				double[] nextScores = root.score(1, n);
+				int[] nextTop = root.top[1];
+				int chosen = best(nextScores, n, nextBeam, nextTop);
+				for(int k = 0; k < chosen; k++) {
+					int j = nextTop[k];
+					addNode(s, next.getOrientation(j), next.getPosition(j),
+							scores[i] + nextScores[j]);
+				}
+			}
+			root.chamber.undoLock();
+		}
+
+		if(nodes > 0) {
+			int leaves = (nodes + NODES_PER_LEAF - 1) / NODES_PER_LEAF;
+			if(getPool() == null) {
+				runNodes(0, nodes, search(0));
+			} else {
+				for(int l = 0; l < leaves; l++)
+					search(l); // made up front so the tasks don't race to make them
+				getPool().invoke(new ChanceNodes(0, nodes));
+			}
+			for(int k = 0; k < nodes; k++) {
+				int s = nodeSpot[k];
+				values[s] = Math.max(values[s], nodeValue[k]);
+			}
+		}
+		// top is best first, so ties go to whatever looked best on its own
+		int chosen = 0;
+		for(int s = 1; s < spots; s++) {
+			if(values[s] > values[chosen])
+				chosen = s;
+		}
+		return top[chosen];
+	}
+
+	private void addNode(int spot, int orientation, int position, double base) {
+		if(nodes == nodeSpot.length) {
+			int size = Math.max(16, 2 * nodes);
+			nodeSpot = Arrays.copyOf(nodeSpot, size);
+			nodeOrientation = Arrays.copyOf(nodeOrientation, size);
+			nodePosition = Arrays.copyOf(nodePosition, size);
+			nodeBase = Arrays.copyOf(nodeBase, size);
+			nodeValue = Arrays.copyOf(nodeValue, size);
+		}
+		nodeSpot[nodes] = spot;
+		nodeOrientation[nodes] = orientation;
+		nodePosition[nodes] = position;
+		nodeBase[nodes++] = base;
+	}
+
+	private Search search(int leaf) {
+		if(leaf >= searches.length) {
+			Search[] grown = new Search[Math.max(leaf + 1, 2 * searches.length)];
+			System.arraycopy(searches, 0, grown, 0, searches.length);
+			searches = grown;
+		}
+		if(searches[leaf] == null)
+			searches[leaf] = new Search(chamber);
+		return searches[leaf];
+	}
+
+	// locks both spots on the search's own copy, then averages over what could come next
+	private void runNodes(int from, int to, Search s) {
+		PlacementFinder finder = getFinder();
+		s.chamber.copyFrom(chamber);
+		s.chamber.setUndoable(true);
+		for(int k = from; k < to; k++) {
+			int i = top[nodeSpot[k]];
+			s.chamber.place(finder.getOrientation(i), finder.getPosition(i));
+			s.chamber.lockPiece();
+			s.chamber.spawn(chamber.getNextType());
+			s.chamber.place(nodeOrientation[k], nodePosition[k]);
+			s.chamber.lockPiece();
+			nodeValue[k] = nodeBase[k] + s.chance(2, lookahead - 1);
+			s.chamber.undoLock();
+			s.chamber.undoLock();
+		}
+	}
+
+	//everything one thread needs to search: a chamber to lock and undo on, and a finder and
+	//scores for each level, so a level's placements survive the levels under it
+	private class Search {
+
+		private Chamber chamber;
+		private PlacementFinder[] finders;
+		private double[][] scores;
+		private int[][] top;
+		private Features features = new Features();
+
+		public Search(Chamber real) {
+			chamber = new Chamber(real);
+			int levels = lookahead + 1;
+			finders = new PlacementFinder[levels];
+			scores = new double[levels][0];
+			top = new int[levels][Math.max(beam, nextBeam)];
+			for(int l = 0; l < levels; l++)
+				finders[l] = new PlacementFinder();
+		}
+
+		// the heuristic's score for each of the level's placements, from previews
+		public double[] score(int level, int count) {
+			if(scores[level].length < count)
+				scores[level] = new double[Math.max(count, 2 * scores[level].length)];
+			PlacementFinder finder = finders[level];
+			for(int i = 0; i < count; i++) {
+				chamber.previewLock(finder.getOrientation(i), finder.getPosition(i),
+						features);
+				scores[level][i] = getHeuristic().evaluate(features);
+			}
+			return scores[level];
+		}
+
+		// the best the falling piece can do, counting remaining more pieces after it
+		public double best(int level, int remaining) {
+			long key = chamber.getStateHash() ^ (remaining + 1) * 0x9E3779B97F4A7C15L;
+			double value = table.get(key);
+			if(Double.isNaN(value)) {
+				value = search(level, remaining);
+				table.put(key, value);
+			}
+			return value;
+		}
+
+		private double search(int level, int remaining) {
+			PlacementFinder finder = finders[level];
+			int count = finder.find(chamber);
+			double[] s = score(level, count);
+			double best = Double.NEGATIVE_INFINITY;
+			if(remaining == 0) {
+				for(int i = 0; i < count; i++)
+					best = Math.max(best, s[i]);
+				return best;
+			}
+			int chosen = HeuristicPlayer.best(s, count, nextBeam, top[level]);
+			for(int k = 0; k < chosen; k++) {
+				int i = top[level][k];
+				chamber.place(finder.getOrientation(i), finder.getPosition(i));
+				chamber.lockPiece();
+				best = Math.max(best, s[i] + chance(level + 1, remaining));
+				chamber.undoLock();
+			}
+			return best;
+		}
+
+		// nobody knows the next piece yet, so every type counts the same
+		public double chance(int level, int remaining) {
+			double total = 0;
+			for(int type = 0; type < PieceType.COUNT; type++) {
+				chamber.spawn(type);
+				total += best(level, remaining - 1);
+			}
+			return total / PieceType.COUNT;
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private class ChanceNodes extends RecursiveAction {
+
+		private int from, to;
+
+		public ChanceNodes(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= NODES_PER_LEAF) {
+				runNodes(from, to, searches[from / NODES_PER_LEAF]);
+				return;
+			}
+			// split on a leaf boundary, so every leaf keeps its own search
+			int middle = (from + to) >>> 1;
+			middle -= middle % NODES_PER_LEAF;
+			if(middle == from)
+				middle += NODES_PER_LEAF;
+			invokeAll(new ChanceNodes(from, middle), new ChanceNodes(middle, to));
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package engine.ai;
+
+import engine.Features;
+
+//scores a chamber's features as a weighted sum. higher is better, and topping out is worse than
+//anything. it's linear, so scoring the changes a lock would make ranks spots the same way as
+//scoring the whole chamber after each one
+public class Heuristic {
+
+	private double heightWeight = -0.51;
+	private double clearedWeight = 0.76;
+	private double holesWeight = -0.36;
+	private double bumpinessWeight = -0.18;
+	private double wellWeight = -0.1;
+
+	public Heuristic() {
+	}
+
+	public Heuristic(double height, double cleared, double holes,
+			double bumpiness, double wells) {
+		heightWeight = height;
+		clearedWeight = cleared;
+		holesWeight = holes;
+		bumpinessWeight = bumpiness;
+		wellWeight = wells;
+	}
+
+	public double evaluate(Features features) {
+		if(features.isToppedOut())
+			return Double.NEGATIVE_INFINITY;
+		return heightWeight * features.getAggregateHeight() +
+				clearedWeight * features.getCleared() +
+				holesWeight * features.getHoles() +
+				bumpinessWeight * features.getRoughness() +
+				wellWeight * features.getWellDepth();
+	}
+
+	@Override
+	public String toString() {
+		return "height " + heightWeight + ", cleared " + clearedWeight +
+				", holes " + holesWeight + ", bumpiness " + bumpinessWeight +
+				", wells " + wellWeight;
+	}
+}
@@ -0,0 +1,205 @@
+package engine.ai;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import engine.Chamber;
+import engine.Features;
+import engine.GameSession;
+import engine.PackedPoint;
+import engine.Player;
+
+//a bot that tries the falling piece everywhere it can reach, scores each spot with a heuristic
+//and goes to the best one. it decides once per piece, and if gravity moves the piece on the way
+//it just finds a new path to the same spot
+public class HeuristicPlayer implements Player {
+
+	public static final Player.Factory FACTORY = new Player.Factory() {
+		@Override
+		public Player newPlayer(long seed) {
+			return new HeuristicPlayer(new Heuristic());
+		}
+	};
+
+	private static final int PARALLEL_THRESHOLD = 128; // fewer than this aren't worth forking
+	private static final int CANDIDATES_PER_LEAF = 32;
+
+	private Heuristic heuristic;
+	private ForkJoinPool pool = null; // without one everything runs on the caller's thread
+	private PlacementFinder finder = new PlacementFinder();
+
+	private Chamber chamber; // the one being decided for
+	private Features features = new Features();
+	private double[] scores = new double[64];
+
+	private int[] plan = null; // commands to the chosen spot, then a hard drop
+	private int step;
+	private long planPiece; // which piece it was made for
+	private int planZ; // where the piece should be if nothing else moved it
+	private int targetOrientation, targetPosition;
+
+	private long decisions = 0;
+	private long decisionNanos = 0;
+	private long slowestNanos = 0;
+
+	public HeuristicPlayer(Heuristic heuristic) {
+		this.heuristic = heuristic;
+	}
+
+	// big batches of candidates get split across the pool
+	public void setPool(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public long getDecisions() {
+		return decisions;
+	}
+
+	public long getDecisionNanos() {
+		return decisionNanos;
+	}
+
+	public long getSlowestNanos() {
+		return slowestNanos;
+	}
+
+	@Override
+	public int nextCommand(GameSession session) {
+		Chamber c = session.getChamber();
+		if(plan == null || session.getPiecesLocked() != planPiece)
+			decide(session);
+		else if(PackedPoint.getZ(c.getFallingPosition()) != planZ)
+			replan(session);
+		if(step == plan.length) {
+			plan = null;
+			return GameSession.HARD_DROP;
+		}
+		int command = plan[step++];
+		if(command == GameSession.MOVE_Z_MINUS)
+			planZ--;
+		return command;
+	}
+
+	private void decide(GameSession session) {
+		long start = System.nanoTime();
+		Chamber c = chamber = session.getChamber();
+		int count = finder.find(c);
+		int best = count == 0 ? -1 : choose(c, count);
+		setPlan(session, best);
+		long nanos = System.nanoTime() - start;
+		decisions++;
+		decisionNanos += nanos;
+		slowestNanos = Math.max(slowestNanos, nanos);
+	}
+
+	// the piece fell a step while it was moving. the spot is most likely still reachable
+	private void replan(GameSession session) {
+		Chamber c = session.getChamber();
+		finder.find(c);
+		int target = finder.indexOf(targetOrientation, targetPosition);
+		if(target < 0)
+			decide(session);
+		else
+			setPlan(session, target);
+	}
+
+	private void setPlan(GameSession session, int placement) {
+		Chamber c = session.getChamber();
+		if(placement < 0) {
+			plan = new int[0];
+		} else {
+			plan = finder.getPath(placement);
+			targetOrientation = finder.getOrientation(placement);
+			targetPosition = finder.getPosition(placement);
+		}
+		step = 0;
+		planPiece = session.getPiecesLocked();
+		planZ = PackedPoint.getZ(c.getFallingPosition());
+	}
+
+	// which of the finder's placements to go for. count is never 0
+	protected int choose(Chamber c, int count) {
+		double[] scores = score(count);
+		int best = 0;
+		for(int i = 1; i < count; i++) {
+			if(scores[i] > scores[best])
+				best = i;
+		}
+		return best;
+	}
+
+	// the heuristic's score for each of the finder's placements, from previews
+	protected double[] score(int count) {
+		if(scores.length < count)
+			scores = new double[Math.max(count, 2 * scores.length)];
+		if(pool != null && count >= PARALLEL_THRESHOLD)
+			pool.invoke(new Evaluate(0, count));
+		else
+			evaluate(0, count, features);
+		return scores;
+	}
+
+	protected PlacementFinder getFinder() {
+		return finder;
+	}
+
+	protected Heuristic getHeuristic() {
+		return heuristic;
+	}
+
+	protected ForkJoinPool getPool() {
+		return pool;
+	}
+
+	// the indexes of the k best finite scores, best first. returns how many there were
+	static int best(double[] scores, int count, int k, int[] into) {
+		int found = 0;
+		for(int i = 0; i < count; i++) {
+			double score = scores[i];
+			if(score == Double.NEGATIVE_INFINITY)
+				continue;
+			int at;
+			if(found < k) {
+				at = found++;
+			} else if(score > scores[into[k - 1]]) {
+				at = k - 1;
+			} else {
+				continue;
+			}
+			for(; at > 0 && scores[into[at - 1]] < score; at--)
+				into[at] = into[at - 1];
+			into[at] = i;
+		}
+		return found;
+	}
+
+	private void evaluate(int from, int to, Features changes) {
+		for(int i = from; i < to; i++) {
+			chamber.previewLock(finder.getOrientation(i), finder.getPosition(i),
+					changes);
+			scores[i] = heuristic.evaluate(changes);
+		}
+	}
+
+	// each leaf gets its own features to work in, and writes only its own part of scores
+	@SuppressWarnings("serial")
+	private class Evaluate extends RecursiveAction {
+
+		private int from, to;
+
+		public Evaluate(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from <= CANDIDATES_PER_LEAF) {
+				evaluate(from, to, new Features());
+				return;
+			}
+			int middle = (from + to) >>> 1;
+			invokeAll(new Evaluate(from, middle), new Evaluate(middle, to));
+		}
+	}
+}
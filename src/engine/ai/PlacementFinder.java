@@ -0,0 +1,425 @@
+package engine.ai;
+
+import java.util.Arrays;
+
+import engine.Chamber;
+import engine.GameSession;
+import engine.PackedPoint;
+import engine.pieces.PieceShape;
+
+//finds everywhere the falling piece can come to rest, by breadth first search over
+//(orientation, x, y, z) using the same moves a player has: sideways, down, and the six turns.
+//going up is a cheat, so it's left out. everything is flat arrays reused between searches,
+//so a search allocates nothing unless the chamber gets bigger.
+//when a plane fits in one long (up to 8x8, like Occupancy) the search floods a whole plane of
+//centers at once, one long per orientation and height, going down a plane at a time since
+//nothing comes back up. paths are then worked out only for the placements asked for.
+//bigger chambers go one state at a time
+public class PlacementFinder {
+
+	private static final int PAD = 1; // the center is a block, so it never gets further out
+	private static final int MAX_OFFSET = 2; // farthest a block is from the center
+	private static final int MAX_ORIENTATIONS = 24;
+	private static final int NONE = -1;
+
+	// the moves tried from each state, as GameSession commands
+	private static final int[] MOVES = {GameSession.MOVE_X_PLUS,
+			GameSession.MOVE_X_MINUS, GameSession.MOVE_Y_PLUS,
+			GameSession.MOVE_Y_MINUS, GameSession.MOVE_Z_MINUS};
+	private static final int[] MOVE_DELTAS = {PackedPoint.RIGHT,
+			PackedPoint.LEFT, PackedPoint.FRONT, PackedPoint.BACK,
+			PackedPoint.DOWN};
+	private static final int[] TURNS = {GameSession.ROTATE_X_PLUS,
+			GameSession.ROTATE_X_MINUS, GameSession.ROTATE_Y_PLUS,
+			GameSession.ROTATE_Y_MINUS, GameSession.ROTATE_Z_PLUS,
+			GameSession.ROTATE_Z_MINUS};
+	private static final int[] TURN_ROTATIONS = {PieceShape.X_PLUS,
+			PieceShape.X_MINUS, PieceShape.Y_PLUS, PieceShape.Y_MINUS,
+			PieceShape.Z_PLUS, PieceShape.Z_MINUS};
+
+	private int length, width, fullHeight;
+	private int sizeX, sizeY, sizeZ; // the padded box the center can be in
+	private PieceShape shape; // the last piece searched
+
+	private boolean planes; // whether this chamber gets the whole plane search
+	private long planeMask, firstColumn, lastColumn;
+	private long[] columnsFor; // centers whose x + dx stays inside, by dx + MAX_OFFSET
+	private long[] rowsFor; // same for y
+	private long[] free; // by z, the empty cells
+	private long[] fits; // by z * orientations + orientation, the centers that fit
+	private long[] reached; // same, the centers found so far
+	private int orientations, startOrientation, startZ;
+	private long startBit;
+	// for working out a path inside one plane, states are orientation << 6 | bit
+	private long[] layerSeen = new long[MAX_ORIENTATIONS];
+	private int[] layerQueue = new int[MAX_ORIENTATIONS << 6];
+	private int[] layerNext = new int[MAX_ORIENTATIONS << 6];
+	private byte[] layerVia = new byte[MAX_ORIENTATIONS << 6];
+	private int[] pathBuffer = new int[64];
+
+	private long[] visited; // one bit per state, for the one at a time search
+	private int[] parent; // the state it was reached from
+	private byte[] via; // and the command that did it
+	private int[] queue;
+	private int[] queuePositions; // packed, alongside queue
+
+	private long[] found = new long[0]; // placements so far, one bit per state
+	private int[] placementOrientations = new int[16];
+	private int[] placementPositions = new int[16];
+	private int[] placementStates = new int[16]; // for one at a time paths
+	private int[] placementKeys = new int[16]; // their bits in found
+	private int count = 0;
+
+	// how many placements the last search found
+	public int getCount() {
+		return count;
+	}
+
+	public int getOrientation(int placement) {
+		return placementOrientations[placement];
+	}
+
+	public int getPosition(int placement) {
+		return placementPositions[placement];
+	}
+
+	// the placement covering the same cubes as the piece would there, or -1 if it wasn't found
+	public int indexOf(int orientation, int position) {
+		if(shape == null)
+			return -1;
+		int same = stateOf(shape.getSameOrientation(orientation),
+				PackedPoint.add(position, shape.getSameShift(orientation)));
+		if(same < 0 || (found[same >> 6] & (1L << same)) == 0)
+			return -1;
+		for(int i = 0; i < count; i++) {
+			if(placementKeys[i] == same)
+				return i;
+		}
+		return -1;
+	}
+
+	// returns how many placements there are. the chamber isn't changed
+	public int find(Chamber chamber) {
+		for(int i = 0; i < count; i++)
+			found[placementKeys[i] >> 6] = 0;
+		count = 0;
+		shape = chamber.getFallingShape();
+		if(shape == null)
+			return 0;
+		resize(chamber);
+		if(planes)
+			findByPlanes(chamber);
+		else
+			findByStates(chamber);
+		return count;
+	}
+
+	// the commands that get there from where the piece was
+	public int[] getPath(int placement) {
+		if(planes)
+			return pathByPlanes(placement);
+		int length = 0;
+		int start = placementStates[placement];
+		for(int s = start; parent[s] != NONE; s = parent[s])
+			length++;
+		int[] path = new int[length];
+		for(int s = start; parent[s] != NONE; s = parent[s])
+			path[--length] = via[s];
+		return path;
+	}
+
+	private void findByPlanes(Chamber chamber) {
+		int n = orientations = shape.getOrientations();
+		int position = chamber.getFallingPosition();
+		startOrientation = chamber.getFallingOrientation();
+		startZ = PackedPoint.getZ(position);
+		startBit = 1L << (PackedPoint.getY(position) * length +
+				PackedPoint.getX(position));
+		int h = fullHeight;
+		for(int z = 0; z < h; z++)
+			free[z] = ~chamber.getPlaneWord(z, 0) & planeMask;
+		for(int o = 0; o < n; o++) {
+			long inside = planeMask;
+			for(int b = 0; b < PieceShape.BLOCKS; b++) {
+				int cell = shape.getCell(o, b);
+				inside &= columnsFor[PackedPoint.getX(cell) + MAX_OFFSET] &
+						rowsFor[PackedPoint.getY(cell) + MAX_OFFSET];
+			}
+			for(int z = 0; z <= startZ; z++) { // nothing goes up, so the rest can't matter
+				long fit = inside;
+				for(int b = 0; b < PieceShape.BLOCKS && fit != 0; b++) {
+					int cell = shape.getCell(o, b);
+					int blockZ = z + PackedPoint.getZ(cell);
+					if(blockZ < 0 || blockZ >= h) {
+						fit = 0;
+						break;
+					}
+					// the center at bit i fits if the block's bit, i + shift, is free
+					int shift = PackedPoint.getX(cell) + PackedPoint.getY(cell) *
+							length;
+					fit &= shift >= 0 ? free[blockZ] >>> shift :
+							free[blockZ] << -shift;
+				}
+				fits[z * n + o] = fit;
+			}
+		}
+
+		// one plane at a time from the top, since whatever is below can only come from above
+		for(int z = startZ; z >= 0; z--) {
+			int row = z * n;
+			boolean any = false;
+			for(int o = 0; o < n; o++) {
+				long r = z == startZ ? 0 : reached[row + n + o] & fits[row + o];
+				if(z == startZ && o == startOrientation)
+					r = startBit;
+				reached[row + o] = r;
+				any |= r != 0;
+			}
+			if(!any)
+				break;
+			boolean grew = true;
+			while(grew) {
+				grew = false;
+				for(int o = 0; o < n; o++) {
+					long r = reached[row + o];
+					if(r == 0)
+						continue;
+					long fit = fits[row + o];
+					for(long before = 0; before != r;) {
+						before = r;
+						r |= (((r << 1) & ~firstColumn) | ((r >>> 1) & ~lastColumn) |
+								(r << length) | (r >>> length)) & fit;
+					}
+					reached[row + o] = r;
+					for(int t = 0; t < TURNS.length; t++) {
+						int turned = row + shape.rotate(TURN_ROTATIONS[t], o);
+						long added = r & fits[turned] & ~reached[turned];
+						if(added != 0) {
+							reached[turned] |= added;
+							grew = true;
+						}
+					}
+				}
+			}
+			for(int o = 0; o < n; o++) {
+				long resting = reached[row + o] & fits[row + o];
+				if(z > 0)
+					resting &= ~fits[row - n + o];
+				while(resting != 0) {
+					int i = Long.numberOfTrailingZeros(resting);
+					resting &= resting - 1;
+					addPlacement(o, PackedPoint.pack(i % length, i / length, z),
+							NONE);
+				}
+			}
+		}
+	}
+
+	// goes back up a plane at a time. within a plane, a small search back from where the piece
+	// ends up finds somewhere it fell in from above, or the start
+	private int[] pathByPlanes(int placement) {
+		int n = orientations;
+		int o = placementOrientations[placement];
+		int position = placementPositions[placement];
+		int z = PackedPoint.getZ(position);
+		int c = PackedPoint.getY(position) * length + PackedPoint.getX(position);
+		int size = 0;
+		while(true) {
+			int row = z * n;
+			Arrays.fill(layerSeen, 0, n, 0);
+			layerQueue[0] = o << 6 | c;
+			layerSeen[o] = 1L << c;
+			int head = 0, tail = 1, entry = NONE;
+			while(entry == NONE) {
+				int s = layerQueue[head++];
+				int so = s >> 6, sc = s & 63;
+				if(isEntry(z, so, sc)) {
+					entry = s;
+					break;
+				}
+				int x = sc % length, y = sc / length;
+				// everything that gets to s in one move
+				if(x > 0)
+					tail = back(row, so, sc - 1, s, GameSession.MOVE_X_PLUS, tail);
+				if(x < length - 1)
+					tail = back(row, so, sc + 1, s, GameSession.MOVE_X_MINUS, tail);
+				if(y > 0)
+					tail = back(row, so, sc - length, s, GameSession.MOVE_Y_PLUS,
+							tail);
+				if(y < width - 1)
+					tail = back(row, so, sc + length, s, GameSession.MOVE_Y_MINUS,
+							tail);
+				for(int t = 0; t < TURNS.length; t++) {
+					for(int before = 0; before < n; before++) {
+						if(before != so &&
+								shape.rotate(TURN_ROTATIONS[t], before) == so)
+							tail = back(row, before, sc, s, TURNS[t], tail);
+					}
+				}
+			}
+			// entry to where it was headed is this plane's part, backwards on the end of path
+			int piece = 0;
+			for(int s = entry; s != (o << 6 | c); s = layerNext[s])
+				piece++;
+			if(size + piece + 1 > pathBuffer.length)
+				pathBuffer = Arrays.copyOf(pathBuffer, 2 * (size + piece + 1));
+			int end = size + piece;
+			for(int s = entry; s != (o << 6 | c); s = layerNext[s])
+				pathBuffer[--end] = layerVia[s];
+			size += piece;
+			o = entry >> 6;
+			c = entry & 63;
+			if(z == startZ && o == startOrientation && (1L << c) == startBit)
+				break;
+			pathBuffer[size++] = GameSession.MOVE_Z_MINUS;
+			z++;
+		}
+		int[] path = new int[size];
+		for(int i = 0; i < size; i++)
+			path[i] = pathBuffer[size - 1 - i];
+		return path;
+	}
+
+	private boolean isEntry(int z, int o, int c) {
+		if(z == startZ)
+			return o == startOrientation && (1L << c) == startBit;
+		return (reached[(z + 1) * orientations + o] & (1L << c)) != 0;
+	}
+
+	// queues state before if it was reached and not seen yet, remembering it leads to s
+	private int back(int row, int o, int c, int s, int command, int tail) {
+		long bit = 1L << c;
+		if((reached[row + o] & bit) == 0 || (layerSeen[o] & bit) != 0)
+			return tail;
+		layerSeen[o] |= bit;
+		int before = o << 6 | c;
+		layerNext[before] = s;
+		layerVia[before] = (byte) command;
+		layerQueue[tail] = before;
+		return tail + 1;
+	}
+
+	private void findByStates(Chamber chamber) {
+		int start = stateOf(chamber.getFallingOrientation(),
+				chamber.getFallingPosition());
+		if(start < 0)
+			return;
+		int orientationStride = sizeX * sizeY * sizeZ;
+		int[] moveStrides = {sizeY * sizeZ, -sizeY * sizeZ, sizeZ, -sizeZ, -1};
+		queue[0] = start;
+		queuePositions[0] = chamber.getFallingPosition();
+		parent[start] = NONE;
+		visited[start >> 6] |= 1L << start;
+		int head = 0, tail = 1;
+		while(head < tail) {
+			int state = queue[head];
+			int position = queuePositions[head++];
+			int orientation = state / orientationStride;
+			for(int m = 0; m < MOVES.length; m++) {
+				int next = state + moveStrides[m];
+				if((visited[next >> 6] & (1L << next)) != 0)
+					continue;
+				int moved = PackedPoint.add(position, MOVE_DELTAS[m]);
+				if(!chamber.canPlace(orientation, moved))
+					continue;
+				visited[next >> 6] |= 1L << next;
+				parent[next] = state;
+				via[next] = (byte) MOVES[m];
+				queue[tail] = next;
+				queuePositions[tail++] = moved;
+			}
+			for(int t = 0; t < TURNS.length; t++) {
+				int turned = shape.rotate(TURN_ROTATIONS[t], orientation);
+				int next = state + (turned - orientation) * orientationStride;
+				if((visited[next >> 6] & (1L << next)) != 0)
+					continue;
+				if(!chamber.canPlace(turned, position))
+					continue;
+				visited[next >> 6] |= 1L << next;
+				parent[next] = state;
+				via[next] = (byte) TURNS[t];
+				queue[tail] = next;
+				queuePositions[tail++] = position;
+			}
+			if(chamber.canPlace(orientation, position) && !chamber.canPlace(
+					orientation, PackedPoint.add(position, PackedPoint.DOWN)))
+				addPlacement(orientation, position, state);
+		}
+		for(int i = 0; i < tail; i++) // only clear what got set
+			visited[queue[i] >> 6] = 0;
+	}
+
+	// two orientations can cover the same cubes, so each one is kept under the first of them
+	private void addPlacement(int orientation, int position, int state) {
+		int same = stateOf(shape.getSameOrientation(orientation),
+				PackedPoint.add(position, shape.getSameShift(orientation)));
+		if((found[same >> 6] & (1L << same)) != 0)
+			return;
+		found[same >> 6] |= 1L << same;
+		if(count == placementOrientations.length) {
+			placementOrientations = Arrays.copyOf(placementOrientations,
+					2 * count);
+			placementPositions = Arrays.copyOf(placementPositions, 2 * count);
+			placementStates = Arrays.copyOf(placementStates, 2 * count);
+			placementKeys = Arrays.copyOf(placementKeys, 2 * count);
+		}
+		placementOrientations[count] = orientation;
+		placementPositions[count] = position;
+		placementStates[count] = state;
+		placementKeys[count++] = same;
+	}
+
+	private int stateOf(int orientation, int position) {
+		int x = PackedPoint.getX(position) + PAD;
+		int y = PackedPoint.getY(position) + PAD;
+		int z = PackedPoint.getZ(position) + PAD;
+		if(x < 0 || x >= sizeX || y < 0 || y >= sizeY || z < 0 || z >= sizeZ)
+			return -1;
+		return ((orientation * sizeX + x) * sizeY + y) * sizeZ + z;
+	}
+
+	private void resize(Chamber chamber) {
+		if(chamber.getLength() == length && chamber.getWidth() == width &&
+				chamber.getFullHeight() == fullHeight)
+			return;
+		length = chamber.getLength();
+		width = chamber.getWidth();
+		fullHeight = chamber.getFullHeight();
+		sizeX = length + 2 * PAD;
+		sizeY = width + 2 * PAD;
+		sizeZ = fullHeight + 2 * PAD;
+		int states = MAX_ORIENTATIONS * sizeX * sizeY * sizeZ;
+		found = new long[(states + 63) / 64];
+		planes = chamber.getWordsPerPlane() == 1;
+		if(planes) {
+			planeMask = length * width == 64 ? -1L : (1L << (length * width)) - 1;
+			firstColumn = lastColumn = 0;
+			columnsFor = new long[2 * MAX_OFFSET + 1];
+			rowsFor = new long[2 * MAX_OFFSET + 1];
+			for(int x = 0; x < length; x++) {
+				for(int y = 0; y < width; y++) {
+					long bit = 1L << (y * length + x);
+					if(x == 0)
+						firstColumn |= bit;
+					if(x == length - 1)
+						lastColumn |= bit;
+					for(int d = -MAX_OFFSET; d <= MAX_OFFSET; d++) {
+						if(0 <= x + d && x + d < length)
+							columnsFor[d + MAX_OFFSET] |= bit;
+						if(0 <= y + d && y + d < width)
+							rowsFor[d + MAX_OFFSET] |= bit;
+					}
+				}
+			}
+			free = new long[fullHeight];
+			fits = new long[MAX_ORIENTATIONS * fullHeight];
+			reached = new long[fits.length];
+		} else {
+			visited = new long[found.length];
+			parent = new int[states];
+			via = new byte[states];
+			queue = new int[states];
+			queuePositions = new int[states];
+		}
+	}
+}
@@ -0,0 +1,72 @@
+package engine.ai;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+//remembers values by hash, so a search that gets to the same chamber some other way doesn't have
+//to work it out again. there's a fixed number of slots and a new value just replaces whatever was
+//in its slot. each slot holds the key xored with the value, then the value, so a slot two threads
+//wrote at once, or one that got read halfway through a write, doesn't match anything and counts
+//as a miss. that way any number of threads can share one without locking
+public class TranspositionTable {
+
+	// an empty slot checks out as key 0 and gives this, which is a miss anyway
+	private static final long EMPTY = Double.doubleToRawLongBits(Double.NaN);
+
+	private final long[] slots;
+	private final int mask;
+	private final LongAdder probes = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+
+	// rounded up to a power of two. each slot takes 16 bytes
+	public TranspositionTable(int size) {
+		int slotCount = Integer.highestOneBit(Math.max(1, size - 1)) << 1;
+		slots = new long[2 * slotCount];
+		mask = slotCount - 1;
+		clear();
+	}
+
+	// NaN if it isn't there
+	public double get(long key) {
+		probes.increment();
+		int i = 2 * ((int) key & mask);
+		long value = slots[i + 1];
+		if((slots[i] ^ value) != key)
+			return Double.NaN;
+		hits.increment();
+		return Double.longBitsToDouble(value);
+	}
+
+	public void put(long key, double value) {
+		long bits = Double.doubleToRawLongBits(value);
+		int i = 2 * ((int) key & mask);
+		slots[i] = key ^ bits;
+		slots[i + 1] = bits;
+	}
+
+	// anything that changes what the values mean, like the weights, has to clear it
+	public void clear() {
+		Arrays.fill(slots, EMPTY);
+		probes.reset();
+		hits.reset();
+	}
+
+	public int size() {
+		return slots.length / 2;
+	}
+
+	public long getProbes() {
+		return probes.sum();
+	}
+
+	public long getHits() {
+		return hits.sum();
+	}
+
+	@Override
+	public String toString() {
+		long p = getProbes();
+		return String.format("%d probes, %.1f%% hits", p,
+				100.0 * getHits() / Math.max(1, p));
+	}
+}
@@ -0,0 +1,165 @@
+package engine.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import engine.Chamber;
+import engine.GameSession;
+import engine.Player;
+import engine.RandomPlayer;
+import engine.replay.Replay;
+import engine.replay.ReplayArchiveWriter;
+import engine.replay.ReplayRecorder;
+
+//plays lots of games at once with no window. every game has its own chamber, seed and player,
+//so nothing is shared and it scales with the cores
+public class BatchRunner {
+
+	private static final int GAMES_PER_LEAF = 4; // below this a task just plays them
+
+	private int length = 6;
+	private int width = 6;
+	private int height = 12;
+	private int commandsPerTick = 4; // how many moves the player gets before it falls one
+	private long maxPieces = 10000; // in case a player is too good to ever lose
+	private long baseSeed = 0;
+	private boolean bag = false; // deal pieces from an 8-bag instead of uniformly
+	private ReplayArchiveWriter archive = null; // where to record the games, if anywhere
+
+	private Player.Factory players;
+	private ForkJoinPool pool;
+
+	public BatchRunner(Player.Factory players) {
+		this(players, Runtime.getRuntime().availableProcessors());
+	}
+
+	public BatchRunner(Player.Factory players, int threads) {
+		this.players = players;
+		pool = new ForkJoinPool(threads);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int threads = args.length > 1 ? Integer.parseInt(args[1]) :
+				Runtime.getRuntime().availableProcessors();
+		BatchRunner runner = new BatchRunner(RandomPlayer.FACTORY, threads);
+		runner.run(games / 10); // warm up
+		if(args.length > 2) {
+			ReplayArchiveWriter archive = new ReplayArchiveWriter(
+					Paths.get(args[2]));
+			runner.setArchive(archive);
+			System.out.println(runner.run(games));
+			archive.close();
+		} else {
+			System.out.println(runner.run(games));
+		}
+		runner.shutdown();
+	}
+
+	public void setSize(int length, int width, int height) {
+		this.length = length;
+		this.width = width;
+		this.height = height;
+	}
+
+	public void setCommandsPerTick(int commandsPerTick) {
+		this.commandsPerTick = commandsPerTick;
+	}
+
+	public void setMaxPieces(long maxPieces) {
+		this.maxPieces = maxPieces;
+	}
+
+	// game i is played with seed baseSeed + i
+	public void setBaseSeed(long baseSeed) {
+		this.baseSeed = baseSeed;
+	}
+
+	public void setBag(boolean bag) {
+		this.bag = bag;
+	}
+
+	public void setArchive(ReplayArchiveWriter archive) {
+		this.archive = archive;
+	}
+
+	public BatchStats run(int games) {
+		long start = System.nanoTime();
+		BatchStats stats = pool.invoke(new Games(0, games));
+		stats.setWallNanos(System.nanoTime() - start);
+		return stats;
+	}
+
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	public GameResult play(long seed) {
+		long start = System.nanoTime();
+		ReplayRecorder recorder = null;
+		GameSession session;
+		if(archive != null) {
+			recorder = new ReplayRecorder(length, width, height, seed, bag);
+			session = recorder.getSession();
+		} else {
+			session = new GameSession(new Chamber(length, width, height,
+					Replay.newGenerator(seed, bag)));
+		}
+		Player player = players.newPlayer(seed);
+		int sinceTick = 0;
+		while(!session.isOver() && session.getPiecesLocked() < maxPieces) {
+			int command = player.nextCommand(session);
+			if(recorder != null)
+				recorder.command(command);
+			else
+				session.command(command);
+			if(++sinceTick == commandsPerTick) {
+				if(recorder != null)
+					recorder.tick();
+				else
+					session.tick();
+				sinceTick = 0;
+			}
+		}
+		if(recorder != null) {
+			try {
+				archive.append(recorder.finish());
+			} catch(IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return new GameResult(seed, session.getScore(),
+				session.getPiecesLocked(), session.getPlanesCleared(),
+				session.getTicks(), System.nanoTime() - start, session.isOver());
+	}
+
+	@SuppressWarnings("serial")
+	private class Games extends RecursiveTask<BatchStats> {
+
+		private int from, to;
+
+		public Games(int from, int to) {
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BatchStats compute() {
+			if(to - from <= GAMES_PER_LEAF) {
+				BatchStats stats = new BatchStats();
+				for(int i = from; i < to; i++)
+					stats.add(play(baseSeed + i));
+				return stats;
+			}
+			int middle = (from + to) >>> 1;
+			Games left = new Games(from, middle);
+			left.fork();
+			BatchStats stats = new Games(middle, to).compute();
+			stats.addAll(left.join());
+			return stats;
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package engine.batch;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+//every game's result, plus the totals worth printing
+public class BatchStats {
+
+	private List<GameResult> results = new ArrayList<GameResult>();
+	private long wallNanos = 0; // for the whole batch, set by the runner
+
+	public void add(GameResult result) {
+		results.add(result);
+	}
+
+	// each fork-join leaf keeps its own, and they get merged on the way up
+	public void addAll(BatchStats other) {
+		results.addAll(other.results);
+	}
+
+	public List<GameResult> getResults() {
+		return results;
+	}
+
+	public int getGames() {
+		return results.size();
+	}
+
+	public void setWallNanos(long wallNanos) {
+		this.wallNanos = wallNanos;
+	}
+
+	public double getGamesPerSecond() {
+		return wallNanos == 0 ? 0 : results.size() * 1e9 / wallNanos;
+	}
+
+	public long getTotalPieces() {
+		long total = 0;
+		for(GameResult r : results)
+			total += r.getPieces();
+		return total;
+	}
+
+	public long getTotalPlanes() {
+		long total = 0;
+		for(GameResult r : results)
+			total += r.getPlanes();
+		return total;
+	}
+
+	// games that lost, rather than getting stopped at the piece cap
+	public int getToppedOut() {
+		int count = 0;
+		for(GameResult r : results) {
+			if(r.isToppedOut()) count++;
+		}
+		return count;
+	}
+
+	// the capped games didn't top out, so they're left out of both of these
+	public double getMeanTicks() {
+		long total = 0;
+		for(GameResult r : results) {
+			if(r.isToppedOut()) total += r.getTicks();
+		}
+		int count = getToppedOut();
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	public double getMeanNanos() {
+		long total = 0;
+		for(GameResult r : results) {
+			if(r.isToppedOut()) total += r.getNanos();
+		}
+		int count = getToppedOut();
+		return count == 0 ? 0 : (double) total / count;
+	}
+
+	public double getMeanScore() {
+		long total = 0;
+		for(GameResult r : results)
+			total += r.getScore();
+		return results.isEmpty() ? 0 : (double) total / results.size();
+	}
+
+	// fraction goes from 0 (worst game) to 1 (best game)
+	public long getScorePercentile(double fraction) {
+		if(results.isEmpty())
+			return 0;
+		long[] scores = new long[results.size()];
+		for(int i = 0; i < scores.length; i++)
+			scores[i] = results.get(i).getScore();
+		Arrays.sort(scores);
+		return scores[(int) Math.round(fraction * (scores.length - 1))];
+	}
+
+	@Override
+	public String toString() {
+		return String.format("%d games in %.2f s, %.1f games/s%n" +
+				"score: mean %.1f, min %d, median %d, 90th %d, max %d%n" +
+				"%d pieces, %d planes%n" +
+				"%d topped out, in %.1f ticks and %.3f ms on average, %d capped",
+				getGames(), wallNanos / 1e9, getGamesPerSecond(), getMeanScore(),
+				getScorePercentile(0), getScorePercentile(0.5),
+				getScorePercentile(0.9), getScorePercentile(1),
+				getTotalPieces(), getTotalPlanes(), getToppedOut(), getMeanTicks(),
+				getMeanNanos() / 1e6, getGames() - getToppedOut());
+	}
+}
@@ -0,0 +1,59 @@
+package engine.batch;
+
+//how one game went
+public class GameResult {
+
+	private long seed;
+	private long score;
+	private long pieces;
+	private long planes;
+	private long ticks; // how long it lasted, in game time
+	private long nanos; // and in real time
+	private boolean toppedOut; // otherwise it got stopped at the piece cap
+
+	public GameResult(long seed, long score, long pieces, long planes,
+			long ticks, long nanos, boolean toppedOut) {
+		this.seed = seed;
+		this.score = score;
+		this.pieces = pieces;
+		this.planes = planes;
+		this.ticks = ticks;
+		this.nanos = nanos;
+		this.toppedOut = toppedOut;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public long getScore() {
+		return score;
+	}
+
+	public long getPieces() {
+		return pieces;
+	}
+
+	public long getPlanes() {
+		return planes;
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	public boolean isToppedOut() {
+		return toppedOut;
+	}
+
+	@Override
+	public String toString() {
+		return "seed " + seed + ": score " + score + ", " + pieces +
+				" pieces, " + planes + " planes, " + ticks + " ticks" +
+				(toppedOut ? "" : ", capped");
+	}
+}
@@ -0,0 +1,71 @@
+package engine.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import engine.Player;
+import engine.ai.ExpectimaxPlayer;
+import engine.ai.HeuristicPlayer;
+
+//measures how long the bots take to decide, one game at a time on one core and with help from
+//the others, then how many games a second the batch runner gets through with them.
+//arguments are the bot (heuristic or expectimax), the games and the threads
+public class PlayerBenchmark {
+
+	public static void main(String[] args) {
+		String bot = args.length > 0 ? args[0] : "heuristic";
+		int games = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		int threads = args.length > 2 ? Integer.parseInt(args[2]) :
+				Runtime.getRuntime().availableProcessors();
+		if(bot.equals("expectimax"))
+			run(ExpectimaxPlayer.FACTORY, games, threads, 200, 2);
+		else
+			run(HeuristicPlayer.FACTORY, games, threads, 1000, 5);
+	}
+
+	// players has to make HeuristicPlayers
+	public static void run(Player.Factory players, int games, int threads,
+			long maxPieces, int latencyGames) {
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		for(int pass = 0; pass < 2; pass++) { // the first one is warm up
+			System.out.println("one core:   " +
+					latency(players, null, latencyGames, maxPieces));
+			System.out.println("all cores:  " +
+					latency(players, pool, latencyGames, maxPieces));
+		}
+		pool.shutdown();
+		BatchRunner runner = new BatchRunner(players, threads);
+		runner.setMaxPieces(maxPieces);
+		runner.run(Math.max(1, games / 10));
+		System.out.println(runner.run(games));
+		runner.shutdown();
+	}
+
+	private static String latency(final Player.Factory factory,
+			final ForkJoinPool pool, int games, long maxPieces) {
+		final List<HeuristicPlayer> players = Collections.synchronizedList(
+				new ArrayList<HeuristicPlayer>());
+		BatchRunner runner = new BatchRunner(new Player.Factory() {
+			@Override
+			public Player newPlayer(long seed) {
+				HeuristicPlayer player = (HeuristicPlayer) factory.newPlayer(seed);
+				player.setPool(pool);
+				players.add(player);
+				return player;
+			}
+		}, 1);
+		runner.setMaxPieces(maxPieces);
+		runner.run(games);
+		runner.shutdown();
+		long decisions = 0, nanos = 0, slowest = 0;
+		for(HeuristicPlayer p : players) {
+			decisions += p.getDecisions();
+			nanos += p.getDecisionNanos();
+			slowest = Math.max(slowest, p.getSlowestNanos());
+		}
+		return String.format("%d decisions, %.1f us mean, %.1f us slowest",
+				decisions, nanos / 1e3 / Math.max(1, decisions), slowest / 1e3);
+	}
+}
@@ -0,0 +1,30 @@
+package engine.pieces;
+
+//deals all eight pieces in a shuffled order, then shuffles again, so droughts can't happen
+public class BagGenerator implements PieceGenerator {
+
+	private UniformGenerator rand;
+	private int[] bag = new int[PieceType.COUNT];
+	private int dealt; // how much of the bag is gone
+
+	public BagGenerator(long seed) {
+		rand = new UniformGenerator(seed);
+		for(int i = 0; i < bag.length; i++)
+			bag[i] = i;
+		dealt = bag.length;
+	}
+
+	@Override
+	public int next() {
+		if(dealt == bag.length) {
+			for(int i = bag.length - 1; i > 0; i--) {
+				int j = rand.nextInt(i + 1);
+				int swap = bag[i];
+				bag[i] = bag[j];
+				bag[j] = swap;
+			}
+			dealt = 0;
+		}
+		return bag[dealt++];
+	}
+}
@@ -0,0 +1,7 @@
+package engine.pieces;
+
+//decides what comes next. the chamber only turns the answer into a piece when it spawns
+public interface PieceGenerator {
+
+	public int next(); // see PieceType
+}
@@ -0,0 +1,175 @@
+package engine.pieces;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import engine.PackedPoint;
+
+//every way a piece can be turned, worked out once, so a rotation is just a lookup
+public class PieceShape {
+
+	public static final int X_PLUS = 0;
+	public static final int X_MINUS = 1;
+	public static final int Y_PLUS = 2;
+	public static final int Y_MINUS = 3;
+	public static final int Z_PLUS = 4;
+	public static final int Z_MINUS = 5;
+	public static final int ROTATIONS = 6;
+
+	public static final int BLOCKS = 4;
+
+	private int color;
+	private int[][] cells; // [orientation][block] packed offsets, center first
+	private int[][] turns; // [rotation][orientation] gives the new orientation
+	private int[] same; // the first orientation covering the same cubes, once moved
+	private int[] sameShift; // packed, how far to move the center to get there
+
+	// others are the x, y, z offsets of the three blocks around the center
+	public PieceShape(int color, int... others) {
+		this.color = color;
+		List<int[]> found = new ArrayList<int[]>();
+		int[] start = new int[3 * BLOCKS];
+		System.arraycopy(others, 0, start, 3, others.length);
+		found.add(start);
+		List<int[]> edges = new ArrayList<int[]>(); // from, rotation, to
+		for(int i = 0; i < found.size(); i++) { // found grows as we go
+			for(int r = 0; r < ROTATIONS; r++) {
+				int[] turned = rotate(found.get(i), r);
+				int to;
+				if(sameShape(found.get(i), turned)) {
+					// only moves it over, like a flat square spinning, so don't
+					to = i;
+				} else {
+					to = indexOf(found, turned);
+					if(to < 0) {
+						to = found.size();
+						found.add(turned);
+					}
+				}
+				edges.add(new int[] {i, r, to});
+			}
+		}
+		cells = new int[found.size()][BLOCKS];
+		for(int o = 0; o < cells.length; o++) {
+			int[] offsets = found.get(o);
+			for(int b = 0; b < BLOCKS; b++) {
+				cells[o][b] = PackedPoint.pack(offsets[3 * b],
+						offsets[3 * b + 1], offsets[3 * b + 2]);
+			}
+		}
+		turns = new int[ROTATIONS][cells.length];
+		for(int[] e : edges)
+			turns[e[1]][e[0]] = e[2];
+		same = new int[cells.length];
+		sameShift = new int[cells.length];
+		for(int o = 0; o < cells.length; o++) {
+			int first = 0;
+			while(!sameShape(found.get(first), found.get(o)))
+				first++;
+			same[o] = first;
+			sameShift[o] = PackedPoint.subtract(lowestCorner(found.get(o)),
+					lowestCorner(found.get(first)));
+		}
+	}
+
+	public int getColor() {
+		return color;
+	}
+
+	public int getOrientations() {
+		return cells.length;
+	}
+
+	public int rotate(int rotation, int orientation) {
+		return turns[rotation][orientation];
+	}
+
+	public int getCell(int orientation, int block) {
+		return cells[orientation][block];
+	}
+
+	// a line flipped end over end covers the same cubes, just with its center somewhere else
+	public int getSameOrientation(int orientation) {
+		return same[orientation];
+	}
+
+	// add to the center to get the center for getSameOrientation
+	public int getSameShift(int orientation) {
+		return sameShift[orientation];
+	}
+
+	// a copy, so nobody can mess up the table
+	public int[] getCells(int orientation) {
+		return cells[orientation].clone();
+	}
+
+	private static int[] rotate(int[] o, int rotation) {
+		int[] r = new int[o.length];
+		for(int i = 0; i < o.length; i += 3) {
+			int x = o[i], y = o[i + 1], z = o[i + 2];
+			switch(rotation) {
+				case X_PLUS:
+					r[i] = x; r[i + 1] = -z; r[i + 2] = y;
+					break;
+				case X_MINUS:
+					r[i] = x; r[i + 1] = z; r[i + 2] = -y;
+					break;
+				case Y_PLUS:
+					r[i] = z; r[i + 1] = y; r[i + 2] = -x;
+					break;
+				case Y_MINUS:
+					r[i] = -z; r[i + 1] = y; r[i + 2] = x;
+					break;
+				case Z_PLUS:
+					r[i] = -y; r[i + 1] = x; r[i + 2] = z;
+					break;
+				case Z_MINUS:
+					r[i] = y; r[i + 1] = -x; r[i + 2] = z;
+					break;
+			}
+		}
+		return r;
+	}
+
+	private static int indexOf(List<int[]> found, int[] o) {
+		int[] key = normalize(o, false);
+		for(int i = 0; i < found.size(); i++) {
+			if(Arrays.equals(normalize(found.get(i), false), key))
+				return i;
+		}
+		return -1;
+	}
+
+	// true if b is just a slid over copy of a
+	private static boolean sameShape(int[] a, int[] b) {
+		return Arrays.equals(normalize(a, true), normalize(b, true));
+	}
+
+	private static int lowestCorner(int[] o) {
+		int[] min = new int[3];
+		Arrays.fill(min, Integer.MAX_VALUE);
+		for(int i = 0; i < o.length; i++)
+			min[i % 3] = Math.min(min[i % 3], o[i]);
+		return PackedPoint.pack(min[0], min[1], min[2]);
+	}
+
+	// the blocks in sorted order, optionally moved so the lowest corner is at 0
+	private static int[] normalize(int[] o, boolean toCorner) {
+		int[] min = new int[3];
+		if(toCorner) {
+			Arrays.fill(min, Integer.MAX_VALUE);
+			for(int i = 0; i < o.length; i++)
+				min[i % 3] = Math.min(min[i % 3], o[i]);
+		}
+		int[] keys = new int[o.length / 3];
+		for(int i = 0; i < keys.length; i++) {
+			// offsets are tiny, so pack each block into one sortable int
+			keys[i] = ((o[3 * i] - min[0] + 8) << 8) |
+					((o[3 * i + 1] - min[1] + 8) << 4) |
+					(o[3 * i + 2] - min[2] + 8);
+		}
+		Arrays.sort(keys);
+		return keys;
+	}
+}
@@ -0,0 +1,43 @@
+package engine.pieces;
+
+import engine.IntPoint;
+
+//pieces as plain ints, so generators and replays don't have to make any until one spawns
+public final class PieceType {
+
+	public static final int LINE = 0;
+	public static final int L = 1;
+	public static final int SQUIGGLY = 2;
+	public static final int SQUARE = 3;
+	public static final int T = 4;
+	public static final int HOOK_L = 5;
+	public static final int HOOK_R = 6;
+	public static final int CORNER = 7;
+	public static final int COUNT = 8;
+
+	private PieceType() {
+	}
+
+	public static Piece create(int type, IntPoint start) {
+		switch(type) {
+			case LINE:
+				return new Line(start);
+			case L:
+				return new L(start);
+			case SQUIGGLY:
+				return new Squiggly(start);
+			case SQUARE:
+				return new Square(start);
+			case T:
+				return new T(start);
+			case HOOK_L:
+				return new Hook_L(start);
+			case HOOK_R:
+				return new Hook_R(start);
+			case CORNER:
+				return new Corner(start);
+			default:
+				throw new IllegalArgumentException("no piece type " + type);
+		}
+	}
+}
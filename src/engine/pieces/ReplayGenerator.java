@@ -0,0 +1,24 @@
+package engine.pieces;
+
+//hands back pieces that were written down earlier, in the same order
+public class ReplayGenerator implements PieceGenerator {
+
+	private int[] types;
+	private int position = 0;
+
+	public ReplayGenerator(int[] types) {
+		this.types = types;
+	}
+
+	@Override
+	public int next() {
+		if(position == types.length)
+			throw new IllegalStateException("replay ran out of pieces after " +
+					position);
+		return types[position++];
+	}
+
+	public int getPosition() {
+		return position;
+	}
+}
@@ -0,0 +1,124 @@
+package engine.pieces;
+
+import engine.IntPoint;
+import engine.PackedPoint;
+
+//all the pieces work the same way, they just start with different blocks
+public abstract class TablePiece implements Piece {
+
+	private PieceShape shape;
+	private int position; // the center, packed
+	private int orientation = 0;
+
+	protected TablePiece(PieceShape shape, IntPoint start) {
+		this.shape = shape;
+		position = PackedPoint.fromIntPoint(start);
+	}
+
+	@Override
+	public PieceShape getShape() {
+		return shape;
+	}
+
+	@Override
+	public int getOrientation() {
+		return orientation;
+	}
+
+	@Override
+	public int getColor() {
+		return shape.getColor();
+	}
+
+	@Override
+	public IntPoint[] getBlocks() {
+		IntPoint[] point3ds = new IntPoint[PieceShape.BLOCKS];
+		for(int i = 0; i < PieceShape.BLOCKS; i++) {
+			point3ds[i] = PackedPoint.toIntPoint(PackedPoint.add(position,
+					shape.getCell(orientation, i)));
+		}
+		return point3ds;
+	}
+
+	@Override
+	public void getBlocks(int[] cells) {
+		for(int i = 0; i < PieceShape.BLOCKS; i++)
+			cells[i] = PackedPoint.add(position, shape.getCell(orientation, i));
+	}
+
+	@Override
+	public IntPoint getCenter() {
+		return PackedPoint.toIntPoint(position);
+	}
+
+	@Override
+	public int getPosition() {
+		return position;
+	}
+
+	@Override
+	public void place(int orientation, int position) {
+		this.orientation = orientation;
+		this.position = position;
+	}
+
+	@Override
+	public void moveXPlus() {
+		position = PackedPoint.add(position, PackedPoint.RIGHT);
+	}
+
+	@Override
+	public void moveXMinus() {
+		position = PackedPoint.add(position, PackedPoint.LEFT);
+	}
+
+	@Override
+	public void moveYPlus() {
+		position = PackedPoint.add(position, PackedPoint.FRONT);
+	}
+
+	@Override
+	public void moveYMinus() {
+		position = PackedPoint.add(position, PackedPoint.BACK);
+	}
+
+	@Override
+	public void moveZPlus() {
+		position = PackedPoint.add(position, PackedPoint.UP);
+	}
+
+	@Override
+	public void moveZMinus() {
+		position = PackedPoint.add(position, PackedPoint.DOWN);
+	}
+
+	@Override
+	public void rotateXPlus() {
+		orientation = shape.rotate(PieceShape.X_PLUS, orientation);
+	}
+
+	@Override
+	public void rotateXMinus() {
+		orientation = shape.rotate(PieceShape.X_MINUS, orientation);
+	}
+
+	@Override
+	public void rotateYPlus() {
+		orientation = shape.rotate(PieceShape.Y_PLUS, orientation);
+	}
+
+	@Override
+	public void rotateYMinus() {
+		orientation = shape.rotate(PieceShape.Y_MINUS, orientation);
+	}
+
+	@Override
+	public void rotateZPlus() {
+		orientation = shape.rotate(PieceShape.Z_PLUS, orientation);
+	}
+
+	@Override
+	public void rotateZMinus() {
+		orientation = shape.rotate(PieceShape.Z_MINUS, orientation);
+	}
+}
@@ -0,0 +1,28 @@
+package engine.pieces;
+
+//every piece equally likely every time. splitmix64, so the whole state is one long
+public class UniformGenerator implements PieceGenerator {
+
+	private long state;
+
+	public UniformGenerator(long seed) {
+		state = seed;
+	}
+
+	@Override
+	public int next() {
+		return nextInt(PieceType.COUNT);
+	}
+
+	// the top 32 bits scaled down, so there's no division
+	public int nextInt(int bound) {
+		return (int) (((nextLong() >>> 32) * bound) >>> 32);
+	}
+
+	public long nextLong() {
+		long z = (state += 0x9E3779B97F4A7C15L);
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -0,0 +1,87 @@
+package engine.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+import engine.Chamber;
+import engine.GameSession;
+import engine.pieces.PieceGenerator;
+
+//the whole game at one moment, so a replay can start from there instead of from the beginning.
+//the cubes are run length encoded, since most of a chamber is empty
+public final class Keyframe {
+
+	private Keyframe() {
+	}
+
+	// writes the size first, so playing straight through can skip it
+	public static void write(ByteArrayOutputStream out, GameSession session) {
+		Chamber chamber = session.getChamber();
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		VarInt.write(body, session.getTicks());
+		VarInt.write(body, session.getPiecesLocked());
+		VarInt.write(body, session.getPlanesCleared());
+		VarInt.write(body, session.getScore());
+		VarInt.write(body, chamber.getFallingType());
+		VarInt.write(body, chamber.getFallingOrientation());
+		VarInt.write(body, chamber.getFallingPosition());
+		VarInt.write(body, chamber.getNextType());
+		int run = 0, color = -1;
+		for(int z = 0; z < chamber.getFullHeight(); z++) {
+			for(int y = 0; y < chamber.getWidth(); y++) {
+				for(int x = 0; x < chamber.getLength(); x++) {
+					int c = chamber.cubeAt(x, y, z);
+					if(c != color && run > 0) {
+						VarInt.write(body, run);
+						VarInt.write(body, color);
+						run = 0;
+					}
+					color = c;
+					run++;
+				}
+			}
+		}
+		VarInt.write(body, run);
+		VarInt.write(body, color);
+		VarInt.write(out, body.size());
+		out.write(body.toByteArray(), 0, body.size());
+	}
+
+	// in is just past the KEYFRAME event, and is left just past the keyframe
+	public static GameSession read(ByteBuffer in, Replay replay) {
+		VarInt.read(in); // the size
+		long ticks = VarInt.read(in);
+		long pieces = VarInt.read(in);
+		long planes = VarInt.read(in);
+		long score = VarInt.read(in);
+		int fallingType = VarInt.readInt(in);
+		int orientation = VarInt.readInt(in);
+		int position = VarInt.readInt(in);
+		int nextType = VarInt.readInt(in);
+
+		PieceGenerator generator = replay.newGenerator();
+		GameSession session = replay.newSession(generator);
+		Chamber chamber = session.getChamber();
+		// the chamber took two when it was made, and one more for every lock
+		for(long i = 0; i < pieces; i++)
+			generator.next();
+
+		int[] cubes = new int[chamber.getLength() * chamber.getWidth() *
+				chamber.getFullHeight()];
+		for(int i = 0; i < cubes.length;) {
+			int run = VarInt.readInt(in);
+			int color = VarInt.readInt(in);
+			for(int end = i + run; i < end; i++)
+				cubes[i] = color;
+		}
+		chamber.restore(cubes, score, fallingType, orientation, position,
+				nextType);
+		session.restoreCounters(ticks, pieces, planes);
+		return session;
+	}
+
+	public static void skip(ByteBuffer in) {
+		int size = VarInt.readInt(in);
+		in.position(in.position() + size);
+	}
+}
@@ -0,0 +1,169 @@
+package engine.replay;
+
+import java.nio.ByteBuffer;
+
+import engine.Chamber;
+import engine.GameSession;
+import engine.pieces.BagGenerator;
+import engine.pieces.PieceGenerator;
+import engine.pieces.UniformGenerator;
+
+//one recorded game. the layout, everything after the magic being a varint unless it says otherwise:
+//  header:    magic (int), version (byte), length, width, height, flags (byte), seed (long), keyframe interval
+//  events:    (ticks since the last event << EVENT_BITS) | code, where a code is a GameSession
+//             command, KEYFRAME (followed by its size and the chamber) or END
+//  index:     keyframe count, then the tick and offset of each one, both as differences from the last
+//  trailer:   where the index starts (int)
+public class Replay {
+
+	public static final int MAGIC = 0x54334452; // "T3DR"
+	public static final int VERSION = 1;
+
+	public static final int EVENT_BITS = 4;
+	public static final int EVENT_MASK = (1 << EVENT_BITS) - 1;
+	public static final int KEYFRAME = GameSession.COMMANDS;
+	public static final int END = KEYFRAME + 1;
+
+	public static final int FLAG_BAG = 1;
+	public static final int FLAG_LOCK_ON_LAND = 2;
+
+	private ByteBuffer data; // position 0 is the magic
+	private int length, width, height;
+	private int flags;
+	private long seed;
+	private int keyframeInterval;
+	private int eventsStart;
+
+	private long[] keyframeTicks;
+	private int[] keyframeOffsets; // where each KEYFRAME event starts
+
+	public Replay(byte[] data) {
+		this(ByteBuffer.wrap(data));
+	}
+
+	// data can be a slice of something bigger, like an archive
+	public Replay(ByteBuffer data) {
+		this.data = data.slice();
+		ByteBuffer in = this.data.duplicate();
+		if(in.getInt() != MAGIC)
+			throw new IllegalArgumentException("not a replay");
+		int version = in.get();
+		if(version != VERSION)
+			throw new IllegalArgumentException("replay version " + version);
+		length = VarInt.readInt(in);
+		width = VarInt.readInt(in);
+		height = VarInt.readInt(in);
+		flags = in.get();
+		seed = in.getLong();
+		keyframeInterval = VarInt.readInt(in);
+		eventsStart = in.position();
+
+		in.position(this.data.limit() - 4);
+		in.position(in.getInt());
+		int count = VarInt.readInt(in);
+		keyframeTicks = new long[count];
+		keyframeOffsets = new int[count];
+		long tick = 0;
+		int offset = 0;
+		for(int i = 0; i < count; i++) {
+			tick += VarInt.read(in);
+			offset += VarInt.readInt(in);
+			keyframeTicks[i] = tick;
+			keyframeOffsets[i] = offset;
+		}
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public boolean isBag() {
+		return (flags & FLAG_BAG) != 0;
+	}
+
+	public boolean isLockOnLand() {
+		return (flags & FLAG_LOCK_ON_LAND) != 0;
+	}
+
+	public int getKeyframeInterval() {
+		return keyframeInterval;
+	}
+
+	public int getKeyframes() {
+		return keyframeTicks.length;
+	}
+
+	public long getKeyframeTick(int i) {
+		return keyframeTicks[i];
+	}
+
+	public int getKeyframeOffset(int i) {
+		return keyframeOffsets[i];
+	}
+
+	// the last keyframe at or before tick, or -1 if there isn't one
+	public int findKeyframe(long tick) {
+		int low = 0, high = keyframeTicks.length - 1, found = -1;
+		while(low <= high) {
+			int middle = (low + high) >>> 1;
+			if(keyframeTicks[middle] <= tick) {
+				found = middle;
+				low = middle + 1;
+			} else {
+				high = middle - 1;
+			}
+		}
+		return found;
+	}
+
+	public int getEventsStart() {
+		return eventsStart;
+	}
+
+	// a read-only view of the whole thing, positioned at the start
+	public ByteBuffer getData() {
+		return data.asReadOnlyBuffer();
+	}
+
+	public int getSize() {
+		return data.limit();
+	}
+
+	public PieceGenerator newGenerator() {
+		return newGenerator(seed, isBag());
+	}
+
+	public static PieceGenerator newGenerator(long seed, boolean bag) {
+		return bag ? new BagGenerator(seed) : new UniformGenerator(seed);
+	}
+
+	// the game as it was before anything happened
+	public GameSession newSession() {
+		return newSession(newGenerator());
+	}
+
+	public GameSession newSession(PieceGenerator generator) {
+		GameSession session = new GameSession(new Chamber(length, width,
+				height, generator));
+		session.setLockOnLand(isLockOnLand());
+		return session;
+	}
+
+	@Override
+	public String toString() {
+		return length + "x" + width + "x" + height + " replay, seed " + seed +
+				", " + getSize() + " bytes, " + getKeyframes() + " keyframes";
+	}
+}
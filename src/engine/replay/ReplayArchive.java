@@ -0,0 +1,122 @@
+package engine.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+//lots of replays back to back in one file, each one an int size and then the replay. the sidecar
+//index is one long offset per game. both are mapped, so a replay is just a slice of the file
+//and reading one copies nothing onto the heap
+public class ReplayArchive implements Closeable, Iterable<Replay> {
+
+	private static final long SEGMENT_SIZE = Integer.MAX_VALUE; // the most one mapping can hold
+
+	private FileChannel data;
+	private LongBuffer offsets;
+	private int games;
+
+	// a mapping can't go past 2 GB, so big archives get several, split between games
+	private List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private List<Long> segmentStarts = new ArrayList<Long>();
+	private int[] segmentOf; // which segment each game is in
+
+	public ReplayArchive(Path file) throws IOException {
+		data = FileChannel.open(file, StandardOpenOption.READ);
+		FileChannel index = FileChannel.open(indexFile(file),
+				StandardOpenOption.READ);
+		try {
+			offsets = index.map(FileChannel.MapMode.READ_ONLY, 0,
+					index.size() / 8 * 8).asLongBuffer();
+		} finally {
+			index.close(); // the mapping stays good without it
+		}
+		games = offsets.limit();
+		segmentOf = new int[games];
+		long start = 0, end = 0;
+		for(int i = 0; i < games; i++) {
+			long offset = offsets.get(i);
+			// games are back to back, so only the last one needs its size read
+			long recordEnd = i + 1 < games ? offsets.get(i + 1) :
+					offset + 4 + readSize(offset);
+			if(recordEnd - start > SEGMENT_SIZE) {
+				map(start, end);
+				start = offset;
+			}
+			end = recordEnd;
+			segmentOf[i] = segments.size();
+		}
+		map(start, end);
+	}
+
+	public static Path indexFile(Path file) {
+		return file.resolveSibling(file.getFileName() + ".idx");
+	}
+
+	public static boolean exists(Path file) {
+		return Files.exists(file) && Files.exists(indexFile(file));
+	}
+
+	public int size() {
+		return games;
+	}
+
+	public Replay get(int game) {
+		int segment = segmentOf[game];
+		ByteBuffer b = segments.get(segment).duplicate();
+		int at = (int) (offsets.get(game) - segmentStarts.get(segment));
+		int size = b.getInt(at);
+		b.position(at + 4);
+		b.limit(at + 4 + size);
+		return new Replay(b);
+	}
+
+	// goes through the games in the order they were added
+	@Override
+	public Iterator<Replay> iterator() {
+		return new Iterator<Replay>() {
+			private int next = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < games;
+			}
+
+			@Override
+			public Replay next() {
+				if(next == games)
+					throw new NoSuchElementException();
+				return get(next++);
+			}
+		};
+	}
+
+	@Override
+	public void close() throws IOException {
+		data.close();
+	}
+
+	private int readSize(long offset) throws IOException {
+		ByteBuffer b = ByteBuffer.allocate(4);
+		while(b.hasRemaining()) {
+			if(data.read(b, offset + b.position()) < 0)
+				throw new IOException("archive ends in the middle of a game");
+		}
+		return b.getInt(0);
+	}
+
+	private void map(long start, long end) throws IOException {
+		segmentStarts.add(start);
+		segments.add(data.map(FileChannel.MapMode.READ_ONLY, start,
+				end - start));
+	}
+}
@@ -0,0 +1,54 @@
+package engine.replay;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+//adds replays to the end of an archive. the record is written before its index entry, so if the
+//process dies the index never points at half of one. nothing gets forced to disk though, so that
+//doesn't hold if the whole machine goes down
+public class ReplayArchiveWriter implements Closeable {
+
+	private FileChannel data;
+	private FileChannel index;
+	private ByteBuffer entry = ByteBuffer.allocate(8);
+	private ByteBuffer size = ByteBuffer.allocate(4);
+
+	public ReplayArchiveWriter(Path file) throws IOException {
+		data = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+		index = FileChannel.open(ReplayArchive.indexFile(file),
+				StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.APPEND);
+	}
+
+	// safe to call from several games at once
+	public synchronized void append(Replay replay) throws IOException {
+		long offset = data.size();
+		size.clear();
+		size.putInt(replay.getSize()).flip();
+		writeFully(data, size);
+		writeFully(data, replay.getData());
+		entry.clear();
+		entry.putLong(offset).flip();
+		writeFully(index, entry);
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		try {
+			data.close();
+		} finally {
+			index.close();
+		}
+	}
+
+	private static void writeFully(FileChannel channel, ByteBuffer b)
+			throws IOException {
+		while(b.hasRemaining())
+			channel.write(b);
+	}
+}
@@ -0,0 +1,118 @@
+package engine.replay;
+
+import java.nio.ByteBuffer;
+
+import engine.GameSession;
+
+//runs a replay back through a headless session, as fast as the engine goes. seeking starts
+//from the nearest keyframe, so it never has to go back to the beginning
+public class ReplayPlayer {
+
+	private Replay replay;
+	private GameSession session;
+	private ByteBuffer in;
+
+	private int pendingCode = -1; // read but not done yet
+	private long pendingTicks = 0; // to do before pendingCode
+	private boolean movedSinceTick = false;
+	private boolean finished = false;
+
+	public ReplayPlayer(Replay replay) {
+		this.replay = replay;
+		restart();
+	}
+
+	// seeking can swap in a new session, so don't hang on to this
+	public GameSession getSession() {
+		return session;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public void restart() {
+		session = replay.newSession();
+		in = replay.getData();
+		in.position(replay.getEventsStart());
+		pendingCode = -1;
+		pendingTicks = 0;
+		movedSinceTick = false;
+		finished = false;
+	}
+
+	// does the next event, returning false once there aren't any
+	public boolean step() {
+		if(!load())
+			return false;
+		for(; pendingTicks > 0; pendingTicks--)
+			tick();
+		int code = pendingCode;
+		pendingCode = -1;
+		if(code == Replay.KEYFRAME) {
+			Keyframe.skip(in);
+		} else if(code == Replay.END) {
+			finished = true;
+			return false;
+		} else {
+			session.command(code);
+			movedSinceTick = true;
+		}
+		return true;
+	}
+
+	public void playToEnd() {
+		while(step())
+			;
+	}
+
+	// leaves the game just after the given tick, before anything the player did next.
+	// past the end it just stops at the end
+	public void seek(long tick) {
+		int k = replay.findKeyframe(tick);
+		long ticks = session.getTicks();
+		boolean behind = tick < ticks || (tick == ticks && movedSinceTick);
+		if(behind || (k >= 0 && replay.getKeyframeTick(k) > ticks)) {
+			if(k < 0) {
+				restart();
+			} else {
+				jumpTo(k);
+			}
+		}
+		while(session.getTicks() < tick && load()) {
+			while(pendingTicks > 0 && session.getTicks() < tick) {
+				pendingTicks--;
+				tick();
+			}
+			if(session.getTicks() < tick)
+				step();
+		}
+	}
+
+	private void jumpTo(int keyframe) {
+		in = replay.getData();
+		in.position(replay.getKeyframeOffset(keyframe));
+		VarInt.read(in); // the KEYFRAME event itself
+		session = Keyframe.read(in, replay);
+		pendingCode = -1;
+		pendingTicks = 0;
+		movedSinceTick = false;
+		finished = false;
+	}
+
+	private void tick() {
+		session.tick();
+		movedSinceTick = false;
+	}
+
+	private boolean load() {
+		if(pendingCode >= 0)
+			return true;
+		if(finished)
+			return false;
+		long event = VarInt.read(in);
+		pendingTicks = event >>> Replay.EVENT_BITS;
+		pendingCode = (int) (event & Replay.EVENT_MASK);
+		return true;
+	}
+}
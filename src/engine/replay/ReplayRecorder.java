@@ -0,0 +1,108 @@
+package engine.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import engine.Chamber;
+import engine.GameSession;
+
+//plays a game through its own session and writes down everything that happens to it
+public class ReplayRecorder {
+
+	public static final int DEFAULT_KEYFRAME_INTERVAL = 1024; // ticks
+
+	private GameSession session;
+	private ByteArrayOutputStream out = new ByteArrayOutputStream();
+	private int keyframeInterval;
+	private long pendingTicks = 0; // go out with the next event
+
+	private long[] keyframeTicks = new long[16];
+	private int[] keyframeOffsets = new int[16];
+	private int keyframes = 0;
+
+	public ReplayRecorder(int length, int width, int height, long seed,
+			boolean bag) {
+		this(length, width, height, seed, bag, true, DEFAULT_KEYFRAME_INTERVAL);
+	}
+
+	// keyframeInterval is in ticks, and has to be at least 1
+	public ReplayRecorder(int length, int width, int height, long seed,
+			boolean bag, boolean lockOnLand, int keyframeInterval) {
+		if(keyframeInterval < 1)
+			throw new IllegalArgumentException("keyframe interval " +
+					keyframeInterval);
+		this.keyframeInterval = keyframeInterval;
+		writeFixed(ByteBuffer.allocate(4).putInt(Replay.MAGIC));
+		out.write(Replay.VERSION);
+		VarInt.write(out, length);
+		VarInt.write(out, width);
+		VarInt.write(out, height);
+		out.write((bag ? Replay.FLAG_BAG : 0) |
+				(lockOnLand ? Replay.FLAG_LOCK_ON_LAND : 0));
+		writeFixed(ByteBuffer.allocate(8).putLong(seed));
+		VarInt.write(out, keyframeInterval);
+
+		session = new GameSession(new Chamber(length, width, height,
+				Replay.newGenerator(seed, bag)));
+		session.setLockOnLand(lockOnLand);
+	}
+
+	// look, but send everything through the recorder or it won't get written down
+	public GameSession getSession() {
+		return session;
+	}
+
+	public boolean command(int command) {
+		if(session.isOver())
+			return false;
+		writeEvent(command);
+		return session.command(command);
+	}
+
+	public boolean tick() {
+		if(session.isOver())
+			return false;
+		boolean spawned = session.tick();
+		pendingTicks++;
+		if(session.getTicks() % keyframeInterval == 0)
+			keyframe();
+		return spawned;
+	}
+
+	public void keyframe() {
+		if(keyframes == keyframeTicks.length) {
+			keyframeTicks = Arrays.copyOf(keyframeTicks, 2 * keyframes);
+			keyframeOffsets = Arrays.copyOf(keyframeOffsets, 2 * keyframes);
+		}
+		keyframeTicks[keyframes] = session.getTicks();
+		keyframeOffsets[keyframes] = out.size();
+		keyframes++;
+		writeEvent(Replay.KEYFRAME);
+		Keyframe.write(out, session);
+	}
+
+	// the recorder is done after this
+	public Replay finish() {
+		writeEvent(Replay.END);
+		int indexStart = out.size();
+		VarInt.write(out, keyframes);
+		for(int i = 0; i < keyframes; i++) {
+			VarInt.write(out, keyframeTicks[i] -
+					(i == 0 ? 0 : keyframeTicks[i - 1]));
+			VarInt.write(out, keyframeOffsets[i] -
+					(i == 0 ? 0 : keyframeOffsets[i - 1]));
+		}
+		writeFixed(ByteBuffer.allocate(4).putInt(indexStart));
+		return new Replay(out.toByteArray());
+	}
+
+	private void writeFixed(ByteBuffer b) {
+		out.write(b.array(), 0, b.position());
+	}
+
+	private void writeEvent(int code) {
+		VarInt.write(out, pendingTicks << Replay.EVENT_BITS | code);
+		pendingTicks = 0;
+	}
+}
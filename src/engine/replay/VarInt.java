@@ -0,0 +1,36 @@
+package engine.replay;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+//seven bits a byte, high bit set if there's more. small numbers are the common case, so they take one byte
+public final class VarInt {
+
+	private VarInt() {
+	}
+
+	// value is treated as unsigned
+	public static void write(ByteArrayOutputStream out, long value) {
+		while((value & ~0x7FL) != 0) {
+			out.write((int) (value & 0x7F) | 0x80);
+			value >>>= 7;
+		}
+		out.write((int) value);
+	}
+
+	public static long read(ByteBuffer in) {
+		long value = 0;
+		for(int shift = 0; shift < 64; shift += 7) {
+			byte b = in.get();
+			value |= (long) (b & 0x7F) << shift;
+			if(b >= 0)
+				return value;
+		}
+		throw new IllegalArgumentException("varint too long at " +
+				in.position());
+	}
+
+	public static int readInt(ByteBuffer in) {
+		return (int) read(in);
+	}
+}
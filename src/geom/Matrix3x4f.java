@@ -0,0 +1,136 @@
+package geom;
+
+/**
+ * A 3x4 float matrix, the shape of a camera: it takes a homogeneous point in
+ * three dimensions to a homogeneous point on the image plane. Like
+ * {@link Matrix4f} it keeps its elements in plain fields and writes every
+ * result into something the caller owns.
+ */
+public class Matrix3x4f {
+
+	float m00, m01, m02, m03;
+	float m10, m11, m12, m13;
+	float m20, m21, m22, m23;
+
+	/**
+	 * Constructs the matrix that drops the homogeneous component.
+	 */
+	public Matrix3x4f() {
+		set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0);
+	}
+
+	/**
+	 * Constructs a copy of the given 3x4 matrix.
+	 *
+	 * @param m The matrix to copy
+	 */
+	public Matrix3x4f(Matrix m) {
+		if(m.getRows() != 3 || m.getColumns() != 4)
+			throw new IllegalArgumentException("Not a 3x4 matrix: " +
+					m.getRows() + " x " + m.getColumns());
+		set(m.get(0, 0), m.get(0, 1), m.get(0, 2), m.get(0, 3), m.get(1, 0),
+				m.get(1, 1), m.get(1, 2), m.get(1, 3), m.get(2, 0), m.get(2, 1),
+				m.get(2, 2), m.get(2, 3));
+	}
+
+	/**
+	 * Sets all twelve elements, in row-major order.
+	 *
+	 * @return This matrix
+	 */
+	public Matrix3x4f set(float m00, float m01, float m02, float m03,
+			float m10, float m11, float m12, float m13,
+			float m20, float m21, float m22, float m23) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		return this;
+	}
+
+	/**
+	 * Copies the given matrix.
+	 *
+	 * @param m The matrix to copy
+	 * @return This matrix
+	 */
+	public Matrix3x4f set(Matrix3x4f m) {
+		return set(m.m00, m.m01, m.m02, m.m03, m.m10, m.m11, m.m12, m.m13,
+				m.m20, m.m21, m.m22, m.m23);
+	}
+
+	/**
+	 * Puts the product of this and the given 4x4 matrix into dest, which may
+	 * be this.
+	 *
+	 * @param m The matrix which will be multiplied by this
+	 * @param dest Where the product goes
+	 * @return dest
+	 */
+	public Matrix3x4f multiplyInto(Matrix4f m, Matrix3x4f dest) {
+		float r00 = m00 * m.m00 + m01 * m.m10 +
+				m02 * m.m20 + m03 * m.m30;
+		float r01 = m00 * m.m01 + m01 * m.m11 +
+				m02 * m.m21 + m03 * m.m31;
+		float r02 = m00 * m.m02 + m01 * m.m12 +
+				m02 * m.m22 + m03 * m.m32;
+		float r03 = m00 * m.m03 + m01 * m.m13 +
+				m02 * m.m23 + m03 * m.m33;
+		float r10 = m10 * m.m00 + m11 * m.m10 +
+				m12 * m.m20 + m13 * m.m30;
+		float r11 = m10 * m.m01 + m11 * m.m11 +
+				m12 * m.m21 + m13 * m.m31;
+		float r12 = m10 * m.m02 + m11 * m.m12 +
+				m12 * m.m22 + m13 * m.m32;
+		float r13 = m10 * m.m03 + m11 * m.m13 +
+				m12 * m.m23 + m13 * m.m33;
+		float r20 = m20 * m.m00 + m21 * m.m10 +
+				m22 * m.m20 + m23 * m.m30;
+		float r21 = m20 * m.m01 + m21 * m.m11 +
+				m22 * m.m21 + m23 * m.m31;
+		float r22 = m20 * m.m02 + m21 * m.m12 +
+				m22 * m.m22 + m23 * m.m32;
+		float r23 = m20 * m.m03 + m21 * m.m13 +
+				m22 * m.m23 + m23 * m.m33;
+		return dest.set(r00, r01, r02, r03, r10, r11, r12, r13, r20, r21, r22,
+				r23);
+	}
+
+	/**
+	 * Projects the point (x, y, z, 1) and writes the image, already divided
+	 * through by its last component, into two consecutive floats.
+	 *
+	 * @param into Where the image goes
+	 * @param at The index the image's x goes at, with y after it
+	 */
+	public void project(float x, float y, float z, float[] into, int at) {
+		float w = m20 * x + m21 * y + m22 * z + m23;
+		into[at] = (m00 * x + m01 * y + m02 * z + m03) / w;
+		into[at + 1] = (m10 * x + m11 * y + m12 * z + m13) / w;
+	}
+
+	/**
+	 * Returns a general matrix with the same elements.
+	 *
+	 * @return A new 3x4 matrix
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(3, 4, m00, m01, m02, m03, m10, m11, m12, m13, m20,
+				m21, m22, m23);
+	}
+
+	@Override
+	public String toString() {
+		return "3x4 Matrix3x4f: [[" + m00 + ", " + m01 + ", " + m02 + ", " + m03 +
+				"], [" + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "], [" +
+				m20 + ", " + m21 + ", " + m22 + ", " + m23 + "]]";
+	}
+}
@@ -0,0 +1,361 @@
+package geom;
+
+/**
+ * A 4x4 float matrix for homogeneous transforms in three dimensions. The
+ * elements are sixteen plain fields rather than an array, and every product
+ * is written out in full into a destination the caller owns, so the render
+ * path neither allocates nor checks dimensions.
+ */
+public class Matrix4f {
+
+	float m00, m01, m02, m03;
+	float m10, m11, m12, m13;
+	float m20, m21, m22, m23;
+	float m30, m31, m32, m33;
+
+	/**
+	 * Constructs the identity matrix.
+	 */
+	public Matrix4f() {
+		setIdentity();
+	}
+
+	/**
+	 * Constructs a copy of the given 4x4 matrix.
+	 *
+	 * @param m The matrix to copy
+	 */
+	public Matrix4f(Matrix m) {
+		if(m.getRows() != 4 || m.getColumns() != 4)
+			throw new IllegalArgumentException("Not a 4x4 matrix: " +
+					m.getRows() + " x " + m.getColumns());
+		for(int i = 0; i < 4; i++)
+			for(int j = 0; j < 4; j++)
+				set(i, j, m.get(i, j));
+	}
+
+	/**
+	 * Sets all sixteen elements, in row-major order.
+	 *
+	 * @return This matrix
+	 */
+	public Matrix4f set(float m00, float m01, float m02, float m03,
+			float m10, float m11, float m12, float m13,
+			float m20, float m21, float m22, float m23,
+			float m30, float m31, float m32, float m33) {
+		this.m00 = m00;
+		this.m01 = m01;
+		this.m02 = m02;
+		this.m03 = m03;
+		this.m10 = m10;
+		this.m11 = m11;
+		this.m12 = m12;
+		this.m13 = m13;
+		this.m20 = m20;
+		this.m21 = m21;
+		this.m22 = m22;
+		this.m23 = m23;
+		this.m30 = m30;
+		this.m31 = m31;
+		this.m32 = m32;
+		this.m33 = m33;
+		return this;
+	}
+
+	/**
+	 * Copies the given matrix.
+	 *
+	 * @param m The matrix to copy
+	 * @return This matrix
+	 */
+	public Matrix4f set(Matrix4f m) {
+		return set(m.m00, m.m01, m.m02, m.m03, m.m10, m.m11, m.m12, m.m13,
+				m.m20, m.m21, m.m22, m.m23, m.m30, m.m31, m.m32, m.m33);
+	}
+
+	/**
+	 * Makes this the identity.
+	 *
+	 * @return This matrix
+	 */
+	public Matrix4f setIdentity() {
+		return set(1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Makes this the matrix that translates a point by the given amounts.
+	 *
+	 * @return This matrix
+	 */
+	public Matrix4f setTranslation(float dx, float dy, float dz) {
+		return set(1, 0, 0, dx, 0, 1, 0, dy, 0, 0, 1, dz, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Makes this a rotation of the given angle around the x axis.
+	 *
+	 * @param rad The angle by which to turn
+	 * @return This matrix
+	 */
+	public Matrix4f setXRotation(float rad) {
+		float cos = (float) Math.cos(rad);
+		float sin = (float) Math.sin(rad);
+		return set(1, 0, 0, 0, 0, cos, -sin, 0, 0, sin, cos, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Makes this a rotation of the given angle around the y axis.
+	 *
+	 * @param rad The angle by which to turn
+	 * @return This matrix
+	 */
+	public Matrix4f setYRotation(float rad) {
+		float cos = (float) Math.cos(rad);
+		float sin = (float) Math.sin(rad);
+		return set(cos, 0, sin, 0, 0, 1, 0, 0, -sin, 0, cos, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Makes this a rotation of the given angle around the z axis.
+	 *
+	 * @param rad The angle by which to turn
+	 * @return This matrix
+	 */
+	public Matrix4f setZRotation(float rad) {
+		float cos = (float) Math.cos(rad);
+		float sin = (float) Math.sin(rad);
+		return set(cos, -sin, 0, 0, sin, cos, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1);
+	}
+
+	/**
+	 * Returns the element at the specified position.
+	 *
+	 * @param i The row index
+	 * @param j The column index
+	 * @return The element at i, j
+	 */
+	public float get(int i, int j) {
+		switch(i * 4 + j) {
+			case 0: return m00;
+			case 1: return m01;
+			case 2: return m02;
+			case 3: return m03;
+			case 4: return m10;
+			case 5: return m11;
+			case 6: return m12;
+			case 7: return m13;
+			case 8: return m20;
+			case 9: return m21;
+			case 10: return m22;
+			case 11: return m23;
+			case 12: return m30;
+			case 13: return m31;
+			case 14: return m32;
+			case 15: return m33;
+		}
+		throw new IndexOutOfBoundsException("(" + i + ", " + j + ")");
+	}
+
+	/**
+	 * Sets the element at the specified position to a specified value.
+	 *
+	 * @param i The row index
+	 * @param j The column index
+	 * @param d The new value
+	 */
+	public void set(int i, int j, float d) {
+		switch(i * 4 + j) {
+			case 0: m00 = d; return;
+			case 1: m01 = d; return;
+			case 2: m02 = d; return;
+			case 3: m03 = d; return;
+			case 4: m10 = d; return;
+			case 5: m11 = d; return;
+			case 6: m12 = d; return;
+			case 7: m13 = d; return;
+			case 8: m20 = d; return;
+			case 9: m21 = d; return;
+			case 10: m22 = d; return;
+			case 11: m23 = d; return;
+			case 12: m30 = d; return;
+			case 13: m31 = d; return;
+			case 14: m32 = d; return;
+			case 15: m33 = d; return;
+		}
+		throw new IndexOutOfBoundsException("(" + i + ", " + j + ")");
+	}
+
+	/**
+	 * Puts the product of this and the given matrix into dest. Either one may
+	 * be dest.
+	 *
+	 * @param m The matrix which will be multiplied by this
+	 * @param dest Where the product goes
+	 * @return dest
+	 */
+	public Matrix4f multiplyInto(Matrix4f m, Matrix4f dest) {
+
+		float r00 = m00 * m.m00 + m01 * m.m10 + m02 * m.m20 + m03 * m.m30;
+		float r01 = m00 * m.m01 + m01 * m.m11 + m02 * m.m21 + m03 * m.m31;
+		float r02 = m00 * m.m02 + m01 * m.m12 + m02 * m.m22 + m03 * m.m32;
+		float r03 = m00 * m.m03 + m01 * m.m13 + m02 * m.m23 + m03 * m.m33;
+		float r10 = m10 * m.m00 + m11 * m.m10 + m12 * m.m20 + m13 * m.m30;
+		float r11 = m10 * m.m01 + m11 * m.m11 + m12 * m.m21 + m13 * m.m31;
+		float r12 = m10 * m.m02 + m11 * m.m12 + m12 * m.m22 + m13 * m.m32;
+		float r13 = m10 * m.m03 + m11 * m.m13 + m12 * m.m23 + m13 * m.m33;
+		float r20 = m20 * m.m00 + m21 * m.m10 + m22 * m.m20 + m23 * m.m30;
+		float r21 = m20 * m.m01 + m21 * m.m11 + m22 * m.m21 + m23 * m.m31;
+		float r22 = m20 * m.m02 + m21 * m.m12 + m22 * m.m22 + m23 * m.m32;
+		float r23 = m20 * m.m03 + m21 * m.m13 + m22 * m.m23 + m23 * m.m33;
+		float r30 = m30 * m.m00 + m31 * m.m10 + m32 * m.m20 + m33 * m.m30;
+		float r31 = m30 * m.m01 + m31 * m.m11 + m32 * m.m21 + m33 * m.m31;
+		float r32 = m30 * m.m02 + m31 * m.m12 + m32 * m.m22 + m33 * m.m32;
+		float r33 = m30 * m.m03 + m31 * m.m13 + m32 * m.m23 + m33 * m.m33;
+		return dest.set(r00, r01, r02, r03, r10, r11, r12, r13,
+				r20, r21, r22, r23, r30, r31, r32, r33);
+	}
+
+	/**
+	 * Puts the image of the given point under this transform into dest, which
+	 * may be p.
+	 *
+	 * @param p The point to transform
+	 * @param dest Where the image goes
+	 * @return dest
+	 */
+	public Vec4f multiplyInto(Vec4f p, Vec4f dest) {
+		return dest.set(m00 * p.x + m01 * p.y + m02 * p.z + m03 * p.w,
+				m10 * p.x + m11 * p.y + m12 * p.z + m13 * p.w,
+				m20 * p.x + m21 * p.y + m22 * p.z + m23 * p.w,
+				m30 * p.x + m31 * p.y + m32 * p.z + m33 * p.w);
+	}
+
+	/**
+	 * Returns true if the bottom row is 0, 0, 0, 1, so this only rotates,
+	 * scales, shears and translates.
+	 *
+	 * @return True if this is an affine transform
+	 */
+	public boolean isAffine() {
+		return m30 == 0 && m31 == 0 && m32 == 0 && m33 == 1;
+	}
+
+	/**
+	 * Returns the determinant of this matrix, from the 2x2 determinants of
+	 * the top two rows and the bottom two.
+	 *
+	 * @return The determinant of this matrix
+	 */
+	public float getDeterminant() {
+		float s0 = m00 * m11 - m10 * m01;
+		float s1 = m00 * m12 - m10 * m02;
+		float s2 = m00 * m13 - m10 * m03;
+		float s3 = m01 * m12 - m11 * m02;
+		float s4 = m01 * m13 - m11 * m03;
+		float s5 = m02 * m13 - m12 * m03;
+		float c5 = m22 * m33 - m32 * m23;
+		float c4 = m21 * m33 - m31 * m23;
+		float c3 = m21 * m32 - m31 * m22;
+		float c2 = m20 * m33 - m30 * m23;
+		float c1 = m20 * m32 - m30 * m22;
+		float c0 = m20 * m31 - m30 * m21;
+		return s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+	}
+
+	/**
+	 * Puts the inverse of this matrix into dest, which may be this. Affine
+	 * matrices take the shorter path through {@link #invertAffineInto}.
+	 *
+	 * @param dest Where the inverse goes
+	 * @return dest
+	 * @throws IllegalArgumentException If this is singular
+	 */
+	public Matrix4f invertInto(Matrix4f dest) {
+		if(isAffine())
+			return invertAffineInto(dest);
+		float s0 = m00 * m11 - m10 * m01;
+		float s1 = m00 * m12 - m10 * m02;
+		float s2 = m00 * m13 - m10 * m03;
+		float s3 = m01 * m12 - m11 * m02;
+		float s4 = m01 * m13 - m11 * m03;
+		float s5 = m02 * m13 - m12 * m03;
+		float c5 = m22 * m33 - m32 * m23;
+		float c4 = m21 * m33 - m31 * m23;
+		float c3 = m21 * m32 - m31 * m22;
+		float c2 = m20 * m33 - m30 * m23;
+		float c1 = m20 * m32 - m30 * m22;
+		float c0 = m20 * m31 - m30 * m21;
+		float det = s0 * c5 - s1 * c4 + s2 * c3 + s3 * c2 - s4 * c1 + s5 * c0;
+		if(det == 0)
+			throw new IllegalArgumentException("Cannot invert matrix");
+		float inv = 1 / det;
+		return dest.set(
+				(m11 * c5 - m12 * c4 + m13 * c3) * inv,
+				(-m01 * c5 + m02 * c4 - m03 * c3) * inv,
+				(m31 * s5 - m32 * s4 + m33 * s3) * inv,
+				(-m21 * s5 + m22 * s4 - m23 * s3) * inv,
+				(-m10 * c5 + m12 * c2 - m13 * c1) * inv,
+				(m00 * c5 - m02 * c2 + m03 * c1) * inv,
+				(-m30 * s5 + m32 * s2 - m33 * s1) * inv,
+				(m20 * s5 - m22 * s2 + m23 * s1) * inv,
+				(m10 * c4 - m11 * c2 + m13 * c0) * inv,
+				(-m00 * c4 + m01 * c2 - m03 * c0) * inv,
+				(m30 * s4 - m31 * s2 + m33 * s0) * inv,
+				(-m20 * s4 + m21 * s2 - m23 * s0) * inv,
+				(-m10 * c3 + m11 * c1 - m12 * c0) * inv,
+				(m00 * c3 - m01 * c1 + m02 * c0) * inv,
+				(-m30 * s3 + m31 * s1 - m32 * s0) * inv,
+				(m20 * s3 - m21 * s1 + m22 * s0) * inv);
+	}
+
+	/**
+	 * Puts the inverse of this affine matrix into dest, which may be this.
+	 * Only the upper 3x3 block is really inverted; the translation just gets
+	 * taken back through it. The bottom row is assumed to be 0, 0, 0, 1.
+	 *
+	 * @param dest Where the inverse goes
+	 * @return dest
+	 * @throws IllegalArgumentException If this is singular
+	 */
+	public Matrix4f invertAffineInto(Matrix4f dest) {
+		float c00 = m11 * m22 - m12 * m21;
+		float c01 = m12 * m20 - m10 * m22;
+		float c02 = m10 * m21 - m11 * m20;
+		float det = m00 * c00 + m01 * c01 + m02 * c02;
+		if(det == 0)
+			throw new IllegalArgumentException("Cannot invert matrix");
+		float inv = 1 / det;
+		float i00 = c00 * inv;
+		float i01 = (m02 * m21 - m01 * m22) * inv;
+		float i02 = (m01 * m12 - m02 * m11) * inv;
+		float i10 = c01 * inv;
+		float i11 = (m00 * m22 - m02 * m20) * inv;
+		float i12 = (m02 * m10 - m00 * m12) * inv;
+		float i20 = c02 * inv;
+		float i21 = (m01 * m20 - m00 * m21) * inv;
+		float i22 = (m00 * m11 - m01 * m10) * inv;
+		float tx = m03, ty = m13, tz = m23;
+		return dest.set(i00, i01, i02, -(i00 * tx + i01 * ty + i02 * tz),
+				i10, i11, i12, -(i10 * tx + i11 * ty + i12 * tz),
+				i20, i21, i22, -(i20 * tx + i21 * ty + i22 * tz),
+				0, 0, 0, 1);
+	}
+
+	/**
+	 * Returns a general matrix with the same elements.
+	 *
+	 * @return A new 4x4 matrix
+	 */
+	public Matrix toMatrix() {
+		return new Matrix(4, 4, m00, m01, m02, m03, m10, m11, m12, m13, m20,
+				m21, m22, m23, m30, m31, m32, m33);
+	}
+
+	@Override
+	public String toString() {
+		return "4x4 Matrix4f: [[" + m00 + ", " + m01 + ", " + m02 + ", " + m03 +
+				"], [" + m10 + ", " + m11 + ", " + m12 + ", " + m13 + "], [" +
+				m20 + ", " + m21 + ", " + m22 + ", " + m23 + "], [" + m30 +
+				", " + m31 + ", " + m32 + ", " + m33 + "]]";
+	}
+}
@@ -0,0 +1,76 @@
+package geom;
+
+/**
+ * A homogeneous point or vector in three dimensions, kept in four plain
+ * fields so nothing is allocated or bounds checked on the render path. It is
+ * mutable so one can be reused for every vertex.
+ */
+public class Vec4f {
+
+	public float x, y, z, w;
+
+	/**
+	 * Constructs the zero vector.
+	 */
+	public Vec4f() {
+	}
+
+	/**
+	 * Constructs a vector with the given components.
+	 *
+	 * @param x The x component
+	 * @param y The y component
+	 * @param z The z component
+	 * @param w The homogeneous component, 1 for points and 0 for directions
+	 */
+	public Vec4f(float x, float y, float z, float w) {
+		set(x, y, z, w);
+	}
+
+	/**
+	 * Sets all four components.
+	 *
+	 * @return This vector
+	 */
+	public Vec4f set(float x, float y, float z, float w) {
+		this.x = x;
+		this.y = y;
+		this.z = z;
+		this.w = w;
+		return this;
+	}
+
+	/**
+	 * Copies the components of the given vector.
+	 *
+	 * @param v The vector to copy
+	 * @return This vector
+	 */
+	public Vec4f set(Vec4f v) {
+		return set(v.x, v.y, v.z, v.w);
+	}
+
+	/**
+	 * Copies the given four dimensional point.
+	 *
+	 * @param p The point to copy
+	 * @return This vector
+	 */
+	public Vec4f set(Point p) {
+		return set(p.get(0), p.get(1), p.get(2), p.get(3));
+	}
+
+	/**
+	 * Returns this as a four dimensional point.
+	 *
+	 * @return A new point with the same components
+	 */
+	public Point toPoint() {
+		return new Point(x, y, z, w);
+	}
+
+	@Override
+	public String toString() {
+		return "(" + x + ", " + y + ", " + z + ", " + w + ")";
+	}
+}
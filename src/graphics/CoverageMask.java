@@ -0,0 +1,176 @@
+package graphics;
+
+import java.util.Arrays;
+
+//which pixels are already painted over by opaque faces. faces go in nearest first, so whatever's
+//tested gets drawn under everything already in it. a face covers the pixels whose centers are
+//inside it or close enough to an edge for its outline to reach, less a little for rounding, and
+//counts as hidden only if everything its own outline could reach is covered. so a face said to be
+//hidden really is, and the odd hidden one just gets drawn anyway
+public class CoverageMask {
+
+	private static final float MITER_LIMIT = 10; // BasicStroke's default
+	private static final float SLACK = 0.5f; // pixels, for how the rasterizer rounds
+
+	private int width, height, words; // words per row
+	private long[] covered = new long[0]; // a bit per pixel, row by row
+	private float scale, originX, originY; // from the lattice's units to pixels
+	private float[] q = new float[8]; // the quad, in pixels
+	private float[] band = new float[8]; // along one edge of it
+
+	// empties it, for a screen of the given size and the transform paintComponent uses
+	public void reset(int width, int height, float scale) {
+		this.width = width;
+		this.height = height;
+		words = (width + 63) >>> 6;
+		if(covered.length < words * height)
+			covered = new long[words * height];
+		else
+			Arrays.fill(covered, 0, words * height, 0);
+		this.scale = scale;
+		originX = width / 2;
+		originY = height / 2;
+	}
+
+	// whether everything a face with this outline and stroke could draw is covered. off the
+	// screen counts as covered
+	public boolean isHidden(float[] quad, float stroke) {
+		toPixels(quad);
+		float margin = reach(stroke / 2) + SLACK;
+		float minX = Float.POSITIVE_INFINITY, minY = Float.POSITIVE_INFINITY;
+		float maxX = Float.NEGATIVE_INFINITY, maxY = Float.NEGATIVE_INFINITY;
+		for(int i = 0; i < 8; i += 2) {
+			minX = Math.min(minX, q[i]);
+			maxX = Math.max(maxX, q[i]);
+			minY = Math.min(minY, q[i + 1]);
+			maxY = Math.max(maxY, q[i + 1]);
+		}
+		int fromX = Math.max(0, (int) Math.floor(minX - margin));
+		int toX = Math.min(width - 1, (int) Math.floor(maxX + margin));
+		int fromY = Math.max(0, (int) Math.floor(minY - margin));
+		int toY = Math.min(height - 1, (int) Math.floor(maxY + margin));
+		if(fromX > toX)
+			return true;
+		for(int y = fromY; y <= toY; y++) {
+			if(!isCovered(y, fromX, toX)) return false;
+		}
+		return true;
+	}
+
+	// marks what an opaque face with this outline and stroke paints over. the quad has to be
+	// convex, which any square in perspective is
+	public void cover(float[] quad, float stroke) {
+		toPixels(quad);
+		fill(q);
+		float half = stroke / 2 - SLACK;
+		if(half <= 0)
+			return;
+		// the stroke along each edge, leaving out the joins
+		for(int i = 0; i < 8; i += 2) {
+			int j = (i + 2) % 8;
+			float dx = q[j] - q[i], dy = q[j + 1] - q[i + 1];
+			float length = (float) Math.sqrt(dx * dx + dy * dy);
+			if(length == 0) continue;
+			float nx = -dy / length * half, ny = dx / length * half;
+			band[0] = q[i] + nx;
+			band[1] = q[i + 1] + ny;
+			band[2] = q[j] + nx;
+			band[3] = q[j + 1] + ny;
+			band[4] = q[j] - nx;
+			band[5] = q[j + 1] - ny;
+			band[6] = q[i] - nx;
+			band[7] = q[i + 1] - ny;
+			fill(band);
+		}
+	}
+
+	private void toPixels(float[] quad) {
+		for(int i = 0; i < 8; i += 2) {
+			q[i] = originX + quad[i] * scale;
+			q[i + 1] = originY + quad[i + 1] * scale;
+		}
+	}
+
+	// how far past the quad's corners its outline can go. the sharper a corner, the longer its
+	// miter, up to the limit
+	private float reach(float half) {
+		float sharpest = 1; // sine of the smallest half angle
+		for(int i = 0; i < 8; i += 2) {
+			int prev = (i + 6) % 8, next = (i + 2) % 8;
+			float ax = q[prev] - q[i], ay = q[prev + 1] - q[i + 1];
+			float bx = q[next] - q[i], by = q[next + 1] - q[i + 1];
+			float lengths = (float) Math.sqrt((ax * ax + ay * ay) * (bx * bx + by * by));
+			if(lengths == 0) return half * MITER_LIMIT;
+			float cos = (ax * bx + ay * by) / lengths;
+			sharpest = Math.min(sharpest, (float) Math.sqrt(Math.max(0, (1 - cos) / 2)));
+		}
+		return half * Math.min(MITER_LIMIT, 1 / Math.max(sharpest, 1 / MITER_LIMIT));
+	}
+
+	// sets every pixel whose center is in the convex quad
+	private void fill(float[] p) {
+		float minY = Math.min(Math.min(p[1], p[3]), Math.min(p[5], p[7]));
+		float maxY = Math.max(Math.max(p[1], p[3]), Math.max(p[5], p[7]));
+		float sign = area(p) < 0 ? -1 : 1; // so it doesn't matter which way the corners go
+		int fromY = Math.max(0, (int) Math.ceil(minY - 0.5f));
+		int toY = Math.min(height - 1, (int) Math.floor(maxY - 0.5f));
+		for(int y = fromY; y <= toY; y++) {
+			float center = y + 0.5f;
+			float low = Float.NEGATIVE_INFINITY, high = Float.POSITIVE_INFINITY;
+			for(int i = 0; i < 8; i += 2) {
+				int j = (i + 2) % 8;
+				float dx = p[j] - p[i], dy = p[j + 1] - p[i + 1];
+				// inside is where sign * (dx * (center - y_i) - dy * (x - x_i)) >= 0
+				if(dy == 0) {
+					if(sign * dx * (center - p[i + 1]) < 0) high = Float.NEGATIVE_INFINITY;
+					continue;
+				}
+				float root = p[i] + dx * (center - p[i + 1]) / dy;
+				if(sign * dy < 0)
+					low = Math.max(low, root);
+				else
+					high = Math.min(high, root);
+			}
+			int fromX = Math.max(0, (int) Math.ceil(low - 0.5f));
+			int toX = Math.min(width - 1, (int) Math.floor(high - 0.5f));
+			if(fromX <= toX)
+				set(y, fromX, toX);
+		}
+	}
+
+	// twice the signed area
+	private static float area(float[] p) {
+		float a = 0;
+		for(int i = 0; i < 8; i += 2) {
+			int j = (i + 2) % 8;
+			a += p[i] * p[j + 1] - p[j] * p[i + 1];
+		}
+		return a;
+	}
+
+	private void set(int y, int fromX, int toX) {
+		int base = y * words;
+		for(int w = fromX >>> 6; w <= toX >>> 6; w++)
+			covered[base + w] |= span(w, fromX, toX);
+	}
+
+	private boolean isCovered(int y, int fromX, int toX) {
+		int base = y * words;
+		for(int w = fromX >>> 6; w <= toX >>> 6; w++) {
+			long bits = span(w, fromX, toX);
+			if((covered[base + w] & bits) != bits) return false;
+		}
+		return true;
+	}
+
+	// the bits of word w that are from fromX to toX
+	private static long span(int w, int fromX, int toX) {
+		int first = w << 6;
+		long bits = -1L;
+		if(fromX > first)
+			bits &= -1L << (fromX - first);
+		if(toX < first + 63)
+			bits &= -1L >>> (63 - (toX - first));
+		return bits;
+	}
+}
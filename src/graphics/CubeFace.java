@@ -3,7 +3,6 @@ package graphics;
 import java.awt.Color;
 
 import engine.pieces.Piece;
-import geom.Point;
 
 public class CubeFace {
 	
@@ -11,23 +10,42 @@ public class CubeFace {
 	public static final int Y_AXIS = 1;
 	public static final int Z_AXIS = 2;
 		
-	private static final float INNER_SIZE = 0.35f;
+	static final float INNER_SIZE = 0.35f;
+	
+	// by color, see Piece, and worked out once since faces change color all the time
+	private static final Color[] COLORS = new Color[Piece.WHITE + 1];
+	private static final Color[] LIGHT_COLORS = new Color[COLORS.length];
+	
+	static {
+		for(int c = 0; c < COLORS.length; c++) {
+			COLORS[c] = mapColor(c);
+			float[] f = Color.RGBtoHSB(COLORS[c].getRed(), COLORS[c].getGreen(),
+					COLORS[c].getBlue(), null);
+			LIGHT_COLORS[c] = Color.getHSBColor(f[0], f[1] * 0.6f, f[2]);
+		}
+	}
 	
-	private Point center = null;
 	private int orientation = 0;
+	private int x, y, z; // the cell it's the minus side of, for finding its corners on a lattice
+	private int facing; // 1 or -1 along its axis, 0 if it's seen from both sides
 	private Color color;
 	private Color lightColor;
 	
-	public CubeFace(Point p, int orientation, int c) {
-		center = p;
+	public CubeFace(int orientation, int x, int y, int z) {
 		this.orientation = orientation;
-		this.color = mapColor(c);
-		float[] f = Color.RGBtoHSB(color.getRed(), color.getGreen(),
-				color.getBlue(), null);
-		lightColor = Color.getHSBColor(f[0], f[1] * 0.6f, f[2]);
+		this.x = x;
+		this.y = y;
+		this.z = z;
 	}
 	
-	private Color mapColor(int c) {
+	// the face stays where it is, only what's drawn there changes
+	public void set(int c, int facing) {
+		this.facing = facing;
+		color = COLORS[c];
+		lightColor = LIGHT_COLORS[c];
+	}
+	
+	private static Color mapColor(int c) {
 		switch(c) {
 			case Piece.BLUE:
 				return Color.BLUE;
@@ -53,59 +71,32 @@ public class CubeFace {
 		return null;
 	}
 	
-	public Point getSquareCenter() {
-		return center;
+	public int getOrientation() {
+		return orientation;
 	}
 	
-	public Point[] getCorners() {
-		Point[] corners = new Point[4];
-		switch(orientation) {
-			case X_AXIS:
-				corners[0] = center.add(new Point(0, 0.5f, 0.5f, 1));
-				corners[1] = center.add(new Point(0, 0.5f, -0.5f, 1));
-				corners[2] = center.add(new Point(0, -0.5f, -0.5f, 1));
-				corners[3] = center.add(new Point(0, -0.5f, 0.5f, 1));
-				return corners;
-			case Y_AXIS:
-				corners[0] = center.add(new Point(0.5f, 0, 0.5f, 1));
-				corners[1] = center.add(new Point(0.5f, 0, -0.5f, 1));
-				corners[2] = center.add(new Point(-0.5f, 0, -0.5f, 1));
-				corners[3] = center.add(new Point(-0.5f, 0, 0.5f, 1));
-				return corners;
-			case Z_AXIS:
-				corners[0] = center.add(new Point(0.5f, 0.5f, 0, 1));
-				corners[1] = center.add(new Point(0.5f, -0.5f, 0, 1));
-				corners[2] = center.add(new Point(-0.5f, -0.5f, 0, 1));
-				corners[3] = center.add(new Point(-0.5f, 0.5f, 0, 1));
-				return corners;
-		}
-		return null;
+	public int getX() {
+		return x;
 	}
 	
-	public Point[] getInnerCorners() {
-		Point[] corners = new Point[4];
-		switch(orientation) {
-			case X_AXIS:
-				corners[0] = center
-						.add(new Point(0, INNER_SIZE, INNER_SIZE, 1));
-				corners[1] = center.add(new Point(0, INNER_SIZE, -INNER_SIZE, 1));
-				corners[2] = center.add(new Point(0, -INNER_SIZE, -INNER_SIZE, 1));
-				corners[3] = center.add(new Point(0, -INNER_SIZE, INNER_SIZE, 1));
-				return corners;
-			case Y_AXIS:
-				corners[0] = center.add(new Point(INNER_SIZE, 0, INNER_SIZE, 1));
-				corners[1] = center.add(new Point(INNER_SIZE, 0, -INNER_SIZE, 1));
-				corners[2] = center.add(new Point(-INNER_SIZE, 0, -INNER_SIZE, 1));
-				corners[3] = center.add(new Point(-INNER_SIZE, 0, INNER_SIZE, 1));
-				return corners;
-			case Z_AXIS:
-				corners[0] = center.add(new Point(INNER_SIZE, INNER_SIZE, 0, 1));
-				corners[1] = center.add(new Point(INNER_SIZE, -INNER_SIZE, 0, 1));
-				corners[2] = center.add(new Point(-INNER_SIZE, -INNER_SIZE, 0, 1));
-				corners[3] = center.add(new Point(-INNER_SIZE, INNER_SIZE, 0, 1));
-				return corners;
-		}
-		return null;
+	public int getY() {
+		return y;
+	}
+	
+	public int getZ() {
+		return z;
+	}
+	
+	public int getFacing() {
+		return facing;
+	}
+	
+	// whether the side it faces is the one the point is on
+	public boolean isFacing(float px, float py, float pz) {
+		if(facing == 0) return true;
+		// it's half a step before the cell on its axis
+		float p = orientation == X_AXIS ? px - x : orientation == Y_AXIS ? py - y : pz - z;
+		return facing * (p + 0.5f) > 0;
 	}
 	
 	public Color getColor() {
@@ -120,7 +111,9 @@ public class CubeFace {
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
-		result = prime * result + ((center == null) ? 0 : center.hashCode());
+		result = prime * result + x;
+		result = prime * result + y;
+		result = prime * result + z;
 		result = prime * result + ((color == null) ? 0 : color.hashCode());
 		result = prime * result +
 				((lightColor == null) ? 0 : lightColor.hashCode());
@@ -134,9 +127,7 @@ public class CubeFace {
 		if(obj == null) return false;
 		if(getClass() != obj.getClass()) return false;
 		CubeFace other = (CubeFace) obj;
-		if(center == null) {
-			if(other.center != null) return false;
-		} else if(!center.equals(other.center)) return false;
+		if(x != other.x || y != other.y || z != other.z) return false;
 		if(color == null) {
 			if(other.color != null) return false;
 		} else if(!color.equals(other.color)) return false;
@@ -149,7 +140,7 @@ public class CubeFace {
 	
 	@Override
 	public String toString() {
-		return "CubeFace [center=" + center + ", orientation=" + orientation +
+		return "CubeFace [x=" + x + ", y=" + y + ", z=" + z + ", orientation=" + orientation +
 				", color=" + color + ", lightColor=" + lightColor + "]";
 	}
 	
@@ -0,0 +1,297 @@
+package graphics;
+
+import java.util.Arrays;
+
+import engine.Chamber;
+import engine.ChamberListener;
+import engine.PackedPoint;
+import engine.pieces.Piece;
+import geom.Point;
+
+//every face that could be drawn gets a slot, so a change only redoes the slots next to it.
+//nothing gets sorted: counting face planes and cell centers together in half steps, along each
+//axis the far end comes first and the camera's own coordinate last, and going through the slots
+//that way is back to front. a face can only cover another if it's no farther along any axis.
+//that order only depends on the camera, so every slot keeps its rank in it and a bit for whether
+//it has a face. a change just flips the bit, and drawing goes through the set ones by rank
+public class FaceIndex implements ChamberListener {
+
+	private static final int NO_FACE = -1;
+
+	private Chamber chamber;
+	private int length, width, height;
+	private int yOffset, zOffset; // where the y and z slots start
+
+	private CubeFace[] slots; // made once and changed in place
+	private int[] slotValues;
+	private int[] ranks; // by slot, where it comes from the camera's position
+	private int[] byRank; // the other way around
+	private long[] present; // by rank, whether the slot has a face
+	private int faceCount = 0;
+	// by axis, farthest first: every half step, then just the planes, then just the cells
+	private int[][] steps = new int[3][], planes = new int[3][], cells = new int[3][];
+
+	private int[] dirtyCells = new int[16]; // packed, see PackedPoint
+	private int dirtyCount = 0;
+	private int dirtyPlanes = Integer.MAX_VALUE;
+
+	public FaceIndex(Chamber chamber, Point viewpoint) {
+		this.chamber = chamber;
+		length = chamber.getLength();
+		width = chamber.getWidth();
+		height = chamber.getHeight();
+		yOffset = (length + 1) * width * height;
+		zOffset = yOffset + length * (width + 1) * height;
+		slots = new CubeFace[zOffset + length * width * (height + 1)];
+		slotValues = new int[slots.length];
+		Arrays.fill(slotValues, NO_FACE);
+		ranks = new int[slots.length];
+		byRank = new int[slots.length];
+		present = new long[(slots.length + 63) >>> 6];
+		int[] sizes = {length, width, height};
+		for(int axis = 0; axis < 3; axis++) {
+			steps[axis] = new int[2 * sizes[axis] + 1];
+			planes[axis] = new int[sizes[axis] + 1];
+			cells[axis] = new int[sizes[axis]];
+		}
+		chamber.setChamberListener(this);
+		rebuild();
+		setViewPoint(viewpoint);
+	}
+
+	// ranks go from 0, farthest from the camera, up to but not including this
+	public int getRankCount() {
+		return slots.length;
+	}
+
+	public int getFaceCount() {
+		return faceCount;
+	}
+
+	// the face at the rank, or null if there isn't one there
+	public CubeFace getFace(int rank) {
+		return slotValues[byRank[rank]] == NO_FACE ? null : slots[byRank[rank]];
+	}
+
+	// the first rank from the given one up that has a face, or -1
+	public int nextFace(int rank) {
+		if(rank >= slots.length) return -1;
+		int w = rank >>> 6;
+		long bits = present[w] & (-1L << rank);
+		while(bits == 0) {
+			if(++w == present.length) return -1;
+			bits = present[w];
+		}
+		return (w << 6) + Long.numberOfTrailingZeros(bits);
+	}
+
+	// the first rank from the given one down that has a face, or -1
+	public int previousFace(int rank) {
+		if(rank < 0) return -1;
+		int w = rank >>> 6;
+		long bits = present[w] & (-1L >>> (63 - (rank & 63)));
+		while(bits == 0) {
+			if(--w < 0) return -1;
+			bits = present[w];
+		}
+		return (w << 6) + 63 - Long.numberOfLeadingZeros(bits);
+	}
+
+	// goes through every slot, so only when the camera moves
+	public void setViewPoint(Point viewpoint) {
+		for(int axis = 0; axis < 3; axis++) {
+			// plane p is at p - 0.5, so in half steps from the first plane everything is 2 * v + 1
+			float camera = 2 * viewpoint.get(axis) / viewpoint.get(3) + 1;
+			farthestFirst(steps[axis].length, 0, 1, camera, steps[axis]);
+			farthestFirst(planes[axis].length, 0, 2, camera, planes[axis]);
+			farthestFirst(cells[axis].length, 1, 2, camera, cells[axis]);
+		}
+		order();
+	}
+
+	// the i for first + step * i, from 0 up to count, by how far that is from camera. planes are
+	// the even ones and cells the odd ones, which reach a step either side, so the cell the camera
+	// is in comes after the planes around it. the farthest is always one of the two ends
+	private static void farthestFirst(int count, int first, int step,
+			float camera, int[] into) {
+		int low = 0, high = count - 1;
+		for(int k = 0; k < count; k++) {
+			int l = first + step * low, h = first + step * high;
+			float lowGap = gap(l, camera), highGap = gap(h, camera);
+			if(lowGap > highGap || lowGap == highGap &&
+					Math.abs(l - camera) >= Math.abs(h - camera))
+				into[k] = low++;
+			else
+				into[k] = high--;
+		}
+	}
+
+	// from the camera to the nearest part of whatever's at half step v
+	private static float gap(int v, float camera) {
+		float d = Math.abs(v - camera);
+		return (v & 1) == 0 ? d : Math.max(0, d - 1);
+	}
+
+	@Override
+	public void cellChanged(int x, int y, int z) {
+		if(0 <= x && x < length && 0 <= y && y < width && 0 <= z && z < height) {
+			if(dirtyCount == dirtyCells.length)
+				dirtyCells = Arrays.copyOf(dirtyCells, 2 * dirtyCount);
+			dirtyCells[dirtyCount++] = PackedPoint.pack(x, y, z);
+		}
+	}
+
+	@Override
+	public void planesChanged(int lowest) {
+		dirtyPlanes = Math.min(dirtyPlanes, lowest);
+	}
+
+	// returns whether any face was touched
+	public boolean update() {
+		if(dirtyCount == 0 && dirtyPlanes >= height) {
+			dirtyPlanes = Integer.MAX_VALUE;
+			return false;
+		}
+		for(int i = 0; i < dirtyCount; i++) {
+			int c = dirtyCells[i];
+			if(PackedPoint.getZ(c) >= dirtyPlanes) continue; // the plane pass gets it
+			refreshSlot(CubeFace.X_AXIS, c);
+			refreshSlot(CubeFace.X_AXIS, PackedPoint.add(c, PackedPoint.RIGHT));
+			refreshSlot(CubeFace.Y_AXIS, c);
+			refreshSlot(CubeFace.Y_AXIS, PackedPoint.add(c, PackedPoint.FRONT));
+			refreshSlot(CubeFace.Z_AXIS, c);
+			refreshSlot(CubeFace.Z_AXIS, PackedPoint.add(c, PackedPoint.UP));
+		}
+		dirtyCount = 0;
+		// moved planes redo every slot above them
+		for(int z = Math.max(dirtyPlanes, 0); z < height; z++) {
+			for(int x = 0; x <= length; x++) {
+				for(int y = 0; y <= width; y++) {
+					if(y < width)
+						refreshSlot(CubeFace.X_AXIS, x, y, z);
+					if(x < length)
+						refreshSlot(CubeFace.Y_AXIS, x, y, z);
+					if(x < length && y < width)
+						refreshSlot(CubeFace.Z_AXIS, x, y, z);
+				}
+			}
+		}
+		if(dirtyPlanes < height) {
+			for(int x = 0; x < length; x++) {
+				for(int y = 0; y < width; y++) {
+					refreshSlot(CubeFace.Z_AXIS, x, y, height);
+				}
+			}
+		}
+		dirtyPlanes = Integer.MAX_VALUE;
+		return true;
+	}
+
+	private void rebuild() {
+		for(int x = 0; x <= length; x++) {
+			for(int y = 0; y <= width; y++) {
+				for(int z = 0; z <= height; z++) {
+					if(y < width && z < height)
+						makeSlot(CubeFace.X_AXIS, x, y, z);
+					if(x < length && z < height)
+						makeSlot(CubeFace.Y_AXIS, x, y, z);
+					if(x < length && y < width)
+						makeSlot(CubeFace.Z_AXIS, x, y, z);
+				}
+			}
+		}
+	}
+
+	private void makeSlot(int orientation, int x, int y, int z) {
+		slots[slotOf(orientation, x, y, z)] = new CubeFace(orientation, x, y, z);
+		refreshSlot(orientation, x, y, z);
+	}
+
+	// z then y then x, each farthest first. which kind of face is at a spot depends on which of
+	// its half steps are planes, and along x it's always all planes or all cells. every slot gets
+	// its rank, and the bits are set again for the ones with faces
+	private void order() {
+		Arrays.fill(present, 0);
+		int rank = 0;
+		for(int hz : steps[CubeFace.Z_AXIS]) {
+			boolean zPlane = (hz & 1) == 0;
+			int z = hz >> 1;
+			for(int hy : steps[CubeFace.Y_AXIS]) {
+				boolean yPlane = (hy & 1) == 0;
+				int y = hy >> 1;
+				if(zPlane && yPlane)
+					continue; // an edge, nothing lies there
+				if(zPlane) {
+					for(int x : cells[CubeFace.X_AXIS])
+						rank = place(slotOf(CubeFace.Z_AXIS, x, y, z), rank);
+				} else if(yPlane) {
+					for(int x : cells[CubeFace.X_AXIS])
+						rank = place(slotOf(CubeFace.Y_AXIS, x, y, z), rank);
+				} else {
+					for(int x : planes[CubeFace.X_AXIS])
+						rank = place(slotOf(CubeFace.X_AXIS, x, y, z), rank);
+				}
+			}
+		}
+	}
+
+	// returns the next rank
+	private int place(int slot, int rank) {
+		ranks[slot] = rank;
+		byRank[rank] = slot;
+		if(slotValues[slot] != NO_FACE)
+			present[rank >>> 6] |= 1L << rank;
+		return rank + 1;
+	}
+
+	private int slotOf(int orientation, int x, int y, int z) {
+		switch(orientation) {
+			case CubeFace.X_AXIS:
+				return (x * width + y) * height + z;
+			case CubeFace.Y_AXIS:
+				return yOffset + (x * (width + 1) + y) * height + z;
+			default:
+				return zOffset + (x * width + y) * (height + 1) + z;
+		}
+	}
+
+	private void refreshSlot(int orientation, int cell) {
+		refreshSlot(orientation, PackedPoint.getX(cell), PackedPoint.getY(cell),
+				PackedPoint.getZ(cell));
+	}
+
+	// the slot is the face on the minus side of the given cell
+	private void refreshSlot(int orientation, int x, int y, int z) {
+		int slot = slotOf(orientation, x, y, z);
+		int dx = orientation == CubeFace.X_AXIS ? 1 : 0;
+		int dy = orientation == CubeFace.Y_AXIS ? 1 : 0;
+		int dz = orientation == CubeFace.Z_AXIS ? 1 : 0;
+		int value1 = chamber.colorAt(x - dx, y - dy, z - dz);
+		int value2 = chamber.colorAt(x, y, z);
+		int value, facing = 0; // toward whichever side is empty
+		if(value1 == Piece.NOTHING) {
+			value = value2;
+			if(value2 != Piece.NOTHING) facing = -1;
+		} else if(value2 == Piece.NOTHING) {
+			value = value1;
+			facing = 1;
+		} else {
+			value = NO_FACE;
+		}
+
+		int old = slotValues[slot];
+		if(old == value && (value == NO_FACE || slots[slot].getFacing() == facing)) return;
+		slotValues[slot] = value;
+		int rank = ranks[slot];
+		if(value == NO_FACE) {
+			present[rank >>> 6] &= ~(1L << rank);
+			faceCount--;
+			return;
+		}
+		if(old == NO_FACE) {
+			present[rank >>> 6] |= 1L << rank;
+			faceCount++;
+		}
+		slots[slot].set(value, facing);
+	}
+}
@@ -0,0 +1,215 @@
+package graphics;
+
+import java.awt.geom.Path2D;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import engine.Chamber;
+
+//where every face corner lands on screen. the corners all sit on the lattice of cell corners, and
+//the inner squares' corners on three more, one for each way a face can point. everything gets
+//projected once when the camera moves, so drawing a face only looks its corners up and moving a
+//piece projects nothing
+public class ProjectedLattice {
+
+	private static final int PARALLEL_VERTICES = 1 << 14; // fewer than this stay on one thread
+	private static final int PLANES_PER_LEAF = 4;
+
+	private Grid outer;
+	private Grid[] inner = new Grid[3]; // by orientation, see CubeFace
+
+	public ProjectedLattice(Chamber chamber) {
+		int length = chamber.getLength();
+		int width = chamber.getWidth();
+		int height = chamber.getHeight();
+		float[] xs = corners(length), ys = corners(width), zs = corners(height);
+		float[] innerXs = innerCorners(length), innerYs = innerCorners(width);
+		float[] innerZs = innerCorners(height);
+		outer = new Grid(xs, ys, zs);
+		inner[CubeFace.X_AXIS] = new Grid(xs, innerYs, innerZs);
+		inner[CubeFace.Y_AXIS] = new Grid(innerXs, ys, innerZs);
+		inner[CubeFace.Z_AXIS] = new Grid(innerXs, innerYs, zs);
+	}
+
+	// cell n goes from n - 0.5 to n + 0.5
+	private static float[] corners(int cells) {
+		float[] c = new float[cells + 1];
+		for(int i = 0; i <= cells; i++)
+			c[i] = i - 0.5f;
+		return c;
+	}
+
+	// two for every cell, one each side of its center
+	private static float[] innerCorners(int cells) {
+		float[] c = new float[2 * cells];
+		for(int i = 0; i < cells; i++) {
+			c[2 * i] = i - CubeFace.INNER_SIZE;
+			c[2 * i + 1] = i + CubeFace.INNER_SIZE;
+		}
+		return c;
+	}
+
+	// has to be called whenever the camera moves
+	public void project(ViewMath vm) {
+		int vertices = outer.size();
+		for(Grid g : inner)
+			vertices += g.size();
+		if(vertices < PARALLEL_VERTICES) {
+			outer.project(vm, 0, outer.zs.length);
+			for(Grid g : inner)
+				g.project(vm, 0, g.zs.length);
+			return;
+		}
+		ForkJoinPool.commonPool().invoke(new Project(vm));
+	}
+
+	public Path2D.Float outline(CubeFace c, Path2D.Float path) {
+		return outline(c.getOrientation(), c.getX(), c.getY(), c.getZ(), path);
+	}
+
+	// the face with that orientation on the minus side of cell (x, y, z), without needing one
+	public Path2D.Float outline(int orientation, int x, int y, int z,
+			Path2D.Float path) {
+		return outer.trace(orientation, x, y, z, path);
+	}
+
+	// the outline's corners, x then y for each, in the same order
+	public float[] corners(CubeFace c, float[] into) {
+		return outer.corners(c.getOrientation(), c.getX(), c.getY(), c.getZ(), into);
+	}
+
+	public Path2D.Float innerOutline(CubeFace c, Path2D.Float path) {
+		int o = c.getOrientation();
+		// the inner lattices have two points for each cell along the face, and the face's own
+		// lattice points across it
+		int x = o == CubeFace.X_AXIS ? c.getX() : 2 * c.getX();
+		int y = o == CubeFace.Y_AXIS ? c.getY() : 2 * c.getY();
+		int z = o == CubeFace.Z_AXIS ? c.getZ() : 2 * c.getZ();
+		return inner[o].trace(o, x, y, z, path);
+	}
+
+	//the product of three lists of coordinates, and where each point of it lands on screen
+	private static class Grid {
+
+		private float[] xs, ys, zs;
+		private int rowStride, planeStride;
+		private float[] screen; // two floats per point, x changing fastest, then y, then z
+		private float[] quad = new float[8]; // for tracing, which only happens while painting
+
+		public Grid(float[] xs, float[] ys, float[] zs) {
+			this.xs = xs;
+			this.ys = ys;
+			this.zs = zs;
+			rowStride = xs.length;
+			planeStride = xs.length * ys.length;
+			screen = new float[2 * size()];
+		}
+
+		public int size() {
+			return planeStride * zs.length;
+		}
+
+		public void project(ViewMath vm, int fromZ, int toZ) {
+			for(int k = fromZ; k < toZ; k++) {
+				for(int j = 0; j < ys.length; j++) {
+					int at = 2 * (k * planeStride + j * rowStride);
+					for(int i = 0; i < xs.length; i++, at += 2)
+						vm.project(xs[i], ys[j], zs[k], screen, at);
+				}
+			}
+		}
+
+		// the face's corners, going around it from the one opposite (x, y, z), which is the
+		// corner with the lowest indexes
+		public Path2D.Float trace(int orientation, int x, int y, int z,
+				Path2D.Float path) {
+			corners(orientation, x, y, z, quad);
+			path.reset();
+			path.moveTo(quad[0], quad[1]);
+			path.lineTo(quad[2], quad[3]);
+			path.lineTo(quad[4], quad[5]);
+			path.lineTo(quad[6], quad[7]);
+			path.closePath();
+			return path;
+		}
+
+		public float[] corners(int orientation, int x, int y, int z, float[] into) {
+			int a, b; // steps along the two axes in the face
+			switch(orientation) {
+				case CubeFace.X_AXIS:
+					a = rowStride;
+					b = planeStride;
+					break;
+				case CubeFace.Y_AXIS:
+					a = 1;
+					b = planeStride;
+					break;
+				default:
+					a = 1;
+					b = rowStride;
+					break;
+			}
+			int v = 2 * (z * planeStride + y * rowStride + x);
+			a *= 2;
+			b *= 2;
+			into[0] = screen[v + a + b];
+			into[1] = screen[v + a + b + 1];
+			into[2] = screen[v + a];
+			into[3] = screen[v + a + 1];
+			into[4] = screen[v];
+			into[5] = screen[v + 1];
+			into[6] = screen[v + b];
+			into[7] = screen[v + b + 1];
+			return into;
+		}
+	}
+
+	// every grid split into slabs of a few planes each
+	@SuppressWarnings("serial")
+	private class Project extends RecursiveAction {
+
+		private ViewMath vm;
+
+		public Project(ViewMath vm) {
+			this.vm = vm;
+		}
+
+		@Override
+		protected void compute() {
+			List<Slab> slabs = new ArrayList<Slab>();
+			slab(outer, slabs);
+			for(Grid g : inner)
+				slab(g, slabs);
+			invokeAll(slabs);
+		}
+
+		private void slab(Grid g, List<Slab> slabs) {
+			for(int z = 0; z < g.zs.length; z += PLANES_PER_LEAF) {
+				slabs.add(new Slab(vm, g, z, Math.min(g.zs.length, z +
+						PLANES_PER_LEAF)));
+			}
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class Slab extends RecursiveAction {
+
+		private ViewMath vm;
+		private Grid grid;
+		private int from, to;
+
+		public Slab(ViewMath vm, Grid grid, int from, int to) {
+			this.vm = vm;
+			this.grid = grid;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			grid.project(vm, from, to);
+		}
+	}
+}
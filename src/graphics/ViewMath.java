@@ -1,10 +1,11 @@
 package graphics;
 
-import java.awt.geom.Point2D;
-
 import engine.Chamber;
 import geom.Matrix;
+import geom.Matrix3x4f;
+import geom.Matrix4f;
 import geom.Point;
+import geom.Vec4f;
 
 public class ViewMath {
 	
@@ -15,15 +16,23 @@ public class ViewMath {
 	
 	public static final Matrix BASE_CAMERA = new Matrix(3, 4, 1, 0, 0, 0, 0, 1,
 			0, 0, 0, 0, 1, 0);
+	private static final Matrix3x4f BASE = new Matrix3x4f(BASE_CAMERA);
 	
-	private Matrix LEFT;
-	private Matrix RIGHT;
+	private Matrix4f LEFT;
+	private Matrix4f RIGHT;
 	private float theta, phi; // polar coordinates
 			
-	private Matrix transform;
+	private Matrix4f transform;
+	// BASE_CAMERA times transform, redone once whenever the view moves
+	private Matrix3x4f camera = new Matrix3x4f();
+	private Point viewPoint = null; // where the camera is, worked out when first asked for
+	private Matrix4f inverse = new Matrix4f();
+	private Vec4f eye = new Vec4f();
 	
-	private Matrix transToOrigin;
-	private Matrix transToCenter;
+	private Matrix4f transToOrigin;
+	private Matrix4f transToCenter;
+	private Matrix4f step = new Matrix4f(); // scratch for putting a move together
+	private Matrix4f turn = new Matrix4f();
 	
 	public ViewMath(Chamber chamber) {
 		int length = chamber.getLength();
@@ -35,29 +44,32 @@ public class ViewMath {
 		phi = (float) (Math.PI / 2);
 		theta = (float) (-Math.PI / 2);
 		
-		transToOrigin = Matrix.getTranslation(-length / 2.0f + 0.5f,
+		transToOrigin = new Matrix4f().setTranslation(-length / 2.0f + 0.5f,
 				-width / 2.0f + 0.5f, -height / 2.0f + 0.5f);
-		transToCenter = Matrix.getTranslation(length / 2.0f - 0.5f,
+		transToCenter = new Matrix4f().setTranslation(length / 2.0f - 0.5f,
 				width / 2.0f - 0.5f, height / 2.0f - 0.5f);
-		Matrix rotateTheta = Matrix.getZRotation(ROTATE);
 		
-		LEFT = transToCenter.multiply(rotateTheta).multiply(transToOrigin);
-		RIGHT = transToCenter.multiply(rotateTheta.transpose()).multiply(
-				transToOrigin);
+		LEFT = aroundCenter(turn.setZRotation(ROTATE), new Matrix4f());
+		RIGHT = aroundCenter(turn.setZRotation(-ROTATE), new Matrix4f());
 		
-		transform = Matrix.getXRotation((float) (Math.PI / 2));
-		transform = transform.multiply(Matrix.getTranslation(
-				-length / 2.0f + 0.5f, diagonal, -height / 2.0f + 0.5f));
+		transform = new Matrix4f().setXRotation((float) (Math.PI / 2));
+		transform.multiplyInto(turn.setTranslation(-length / 2.0f + 0.5f,
+				diagonal, -height / 2.0f + 0.5f), transform);
+		viewChanged();
 	}
 	
-	public Point2D getProjectedPoint(Point p) {
-		Point image = BASE_CAMERA.multiply(transform).multiply(p)
-				.unhomogenize();
-		return new Point2D.Float(image.get(0), image.get(1));
+	// where the point lands on screen, put in into at at and the one after
+	public void project(float x, float y, float z, float[] into, int at) {
+		camera.project(x, y, z, into, at);
 	}
 	
+	// the transform only ever rotates and translates, so this takes the affine inverse
 	public Point getViewPoint() {
-		return transform.inverse().multiply(new Point(0, 0, 0, 1));
+		if(viewPoint == null) {
+			transform.invertInto(inverse);
+			viewPoint = inverse.multiplyInto(eye.set(0, 0, 0, 1), eye).toPoint();
+		}
+		return viewPoint;
 	}
 	
 	public double getTheta() {
@@ -70,10 +82,7 @@ public class ViewMath {
 			phi = MIN_PHI;
 			return false;
 		}
-		transform = transform.multiply(transToCenter)
-				.multiply(Matrix.getZRotation(theta))
-				.multiply(Matrix.getYRotation(ROTATE))
-				.multiply(Matrix.getZRotation(-theta)).multiply(transToOrigin);
+		tilt(ROTATE);
 		return true;
 	}
 	
@@ -83,10 +92,7 @@ public class ViewMath {
 			phi = MAX_PHI;
 			return false;
 		}
-		transform = transform.multiply(transToCenter)
-				.multiply(Matrix.getZRotation(theta))
-				.multiply(Matrix.getYRotation(-ROTATE))
-				.multiply(Matrix.getZRotation(-theta)).multiply(transToOrigin);
+		tilt(-ROTATE);
 		return true;
 	}
 
@@ -94,12 +100,34 @@ public class ViewMath {
 		theta -= ROTATE;
 		if(theta < -Math.PI) theta += Math.PI * 2; // keeps it between pi and
 													// -pi
-		transform = transform.multiply(LEFT);
+		transform.multiplyInto(LEFT, transform);
+		viewChanged();
 	}
 	
 	public void moveRight() {
 		theta += ROTATE;
 		if(theta > Math.PI) theta -= Math.PI * 2; // keeps it between pi and -pi
-		transform = transform.multiply(RIGHT);
+		transform.multiplyInto(RIGHT, transform);
+		viewChanged();
+	}
+	
+	// turns about the horizontal axis facing theta, through the chamber's center
+	private void tilt(float rad) {
+		step.setZRotation(theta);
+		step.multiplyInto(turn.setYRotation(rad), step);
+		step.multiplyInto(turn.setZRotation(-theta), step);
+		transform.multiplyInto(aroundCenter(step, step), transform);
+		viewChanged();
+	}
+	
+	// the rotation done about the chamber's center instead of the origin
+	private Matrix4f aroundCenter(Matrix4f rotation, Matrix4f dest) {
+		transToCenter.multiplyInto(rotation, dest);
+		return dest.multiplyInto(transToOrigin, dest);
+	}
+	
+	private void viewChanged() {
+		BASE.multiplyInto(transform, camera);
+		viewPoint = null;
 	}
 }
@@ -9,17 +9,18 @@ import java.awt.Shape;
 import java.awt.event.KeyEvent;
 import java.awt.geom.AffineTransform;
 import java.awt.geom.Path2D;
-import java.awt.geom.Point2D;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.swing.JPanel;
 
 import engine.Chamber;
 import engine.CheatCodes;
-import engine.IntPoint;
+import engine.GameSession;
+import engine.PackedPoint;
+import engine.ai.Heuristic;
+import engine.ai.HeuristicPlayer;
 import engine.pieces.Piece;
+import engine.pieces.PieceShape;
 import geom.Point;
 
 @SuppressWarnings("serial")
@@ -30,108 +31,55 @@ public class ViewingCanvas extends JPanel {
 	
 	private static final Color gridColor = new Color(128, 128, 128, 64);
 	private static final Color pauseColor = new Color(192, 192, 192, 192);
+	private static final Color ghostColor = new Color(255, 255, 255, 160);
+	private static final Color countColor = Color.WHITE;
+	
+	// outline widths in pixels
+	private static final float FILLED_STROKE = 3;
+	private static final float EMPTY_STROKE = 1;
+	
+	// minus then plus along each axis, for finding the ghost's faces
+	private static final int[] SHIFTS = {PackedPoint.LEFT, PackedPoint.RIGHT,
+			PackedPoint.BACK, PackedPoint.FRONT, PackedPoint.DOWN, PackedPoint.UP};
+	
+	private CheatCodes cheats = new CheatCodes();
 	
 	private boolean paused = false;
+	private boolean ghostMode = false;
+	private HeuristicPlayer bot = null; // plays by itself while this is set
 	
+	private GameSession session = null;
 	private Chamber chamber = null;
 	private int length, width, height;
 	
 	private ViewMath vm;
 	
-	private List<CubeFace> faces = new ArrayList<CubeFace>();
+	private FaceIndex faceIndex;
+	private ProjectedLattice lattice; // every corner on screen, redone when the camera moves
+	private Path2D.Float outline = new Path2D.Float(); // reused for every face drawn
+	private Path2D.Float innerOutline = new Path2D.Float();
 	
-	public ViewingCanvas() {
-		setPreferredSize(new Dimension(500, 500));
-		newGame();
-	}
+	// the ghost's outlines, only redone on update
+	private int[] ghostCells = new int[PieceShape.BLOCKS];
+	private Path2D.Float[] ghostOutlines = new Path2D.Float[SHIFTS.length * PieceShape.BLOCKS];
+	private int ghostFaces = 0;
 	
-	private void generateCubeFaces() {
-		faces.clear();
-		for(int x = 0; x < length; x++) {
-			for(int y = 0; y < width; y++) {
-				for(int z = 0; z < height; z++) {
-					addCubeFace(new IntPoint(x, y, z), IntPoint.UP);
-					addCubeFace(new IntPoint(x, y, z), IntPoint.FRONT);
-					addCubeFace(new IntPoint(x, y, z), IntPoint.RIGHT);
-				}
-			}
-		}
-		for(int x = 0; x < length; x++) {
-			for(int y = 0; y < width; y++) {
-				addCubeFace(new IntPoint(x, y, 0), IntPoint.DOWN);
-			}
-		}
-		for(int y = 0; y < width; y++) {
-			for(int z = 0; z < height; z++) {
-				addCubeFace(new IntPoint(0, y, z), IntPoint.LEFT);
-			}
-		}
-		for(int z = 0; z < height; z++) {
-			for(int x = 0; x < length; x++) {
-				addCubeFace(new IntPoint(x, 0, z), IntPoint.BACK);
-			}
-		}
-		Collections.sort(faces, new CubeCompare(vm.getViewPoint()));
-	}
+	private CoverageMask mask = new CoverageMask();
+	private float[] quad = new float[8];
+	// what the last cull found, kept until the faces, the camera or the size change
+	private boolean[] visible = new boolean[0]; // by rank in the face index
+	private int facesSubmitted = 0, facesDrawn = 0;
+	private int culledWidth = -1, culledHeight = -1;
 	
-	private void addCubeFace(IntPoint p1, IntPoint shift) {
-		IntPoint p2 = p1.add(shift);
-		int value1, value2, orientation;
-		
-		if(shift.equals(IntPoint.UP) || shift.equals(IntPoint.DOWN)) {
-			orientation = CubeFace.Z_AXIS;
-		} else if(shift.equals(IntPoint.LEFT) || shift.equals(IntPoint.RIGHT)) {
-			orientation = CubeFace.X_AXIS;
-		} else {
-			orientation = CubeFace.Y_AXIS;
-		}
-		
-		if(p1.inBounds(length, width, height)) {
-			value1 = chamber.getCubes()[p1.getX()][p1.getY()][p1.getZ()];
-		} else {
-			value1 = Piece.NOTHING;
-		}
-		if(p2.inBounds(length, width, height)) {
-			value2 = chamber.getCubes()[p2.getX()][p2.getY()][p2.getZ()];
-		} else {
-			value2 = Piece.NOTHING;
-		}
-		
-		if(value1 == Piece.NOTHING) {
-			faces.add(new CubeFace(p1.midpoint(p2), orientation, value2));
-		} else if(value2 == Piece.NOTHING) {
-			faces.add(new CubeFace(p1.midpoint(p2), orientation, value1));
-		}
-	}
+	// the outlines, made again only when the scale changes
+	private float strokeScale = -1;
+	private BasicStroke filledStroke, emptyStroke, ghostStroke;
 	
-	private Path2D getOuterShape(CubeFace c) {
-		Point[] corners3D = c.getCorners();
-		Point2D[] corners2D = new Point2D[4];
-		for(int i = 0; i < corners3D.length; i++) {
-			corners2D[i] = vm.getProjectedPoint(corners3D[i]);
-		}
-		Path2D.Float path = new Path2D.Float();
-		path.moveTo(corners2D[0].getX(), corners2D[0].getY());
-		path.lineTo(corners2D[1].getX(), corners2D[1].getY());
-		path.lineTo(corners2D[2].getX(), corners2D[2].getY());
-		path.lineTo(corners2D[3].getX(), corners2D[3].getY());
-		path.closePath();
-		return path;
-	}
-	
-	private Path2D getInnerShape(CubeFace c) {
-		Point[] corners3D = c.getInnerCorners();
-		Point2D[] corners2D = new Point2D[4];
-		for(int i = 0; i < corners3D.length; i++) {
-			corners2D[i] = vm.getProjectedPoint(corners3D[i]);
-		}
-		Path2D.Float path = new Path2D.Float();
-		path.moveTo(corners2D[0].getX(), corners2D[0].getY());
-		path.lineTo(corners2D[1].getX(), corners2D[1].getY());
-		path.lineTo(corners2D[2].getX(), corners2D[2].getY());
-		path.lineTo(corners2D[3].getX(), corners2D[3].getY());
-		path.closePath();
-		return path;
+	public ViewingCanvas() {
+		setPreferredSize(new Dimension(500, 500));
+		for(int i = 0; i < ghostOutlines.length; i++)
+			ghostOutlines[i] = new Path2D.Float();
+		newGame();
 	}
 	
 	@Override
@@ -149,6 +97,11 @@ public class ViewingCanvas extends JPanel {
 		paintCubes(g2d, scale);
 		g2d.setTransform(savedTransform);
 		
+		if(cheats.faceCount) {
+			g2d.setColor(countColor);
+			g2d.drawString(facesDrawn + " of " + facesSubmitted + " faces drawn", 5, 15);
+		}
+		
 		if(paused) {
 			g2d.setColor(pauseColor);
 			g2d.fillRect(0, 0, getWidth(), getHeight());
@@ -156,59 +109,141 @@ public class ViewingCanvas extends JPanel {
 	}
 	
 	private void paintCubes(Graphics2D g2d, float scale) {
-		for(CubeFace c : faces) {
+		if(getWidth() != culledWidth || getHeight() != culledHeight)
+			cull(); // resized since
+		if(scale != strokeScale) {
+			// so lines are the same thick in pixels whatever the size
+			filledStroke = new BasicStroke(FILLED_STROKE / scale);
+			emptyStroke = new BasicStroke(EMPTY_STROKE / scale);
+			ghostStroke = new BasicStroke(2 / scale);
+			strokeScale = scale;
+		}
+		for(int r = faceIndex.nextFace(0); r >= 0; r = faceIndex.nextFace(r + 1)) {
+			if(!visible[r]) continue;
+			CubeFace c = faceIndex.getFace(r);
 			if(c.getColor().getAlpha() == 0) {
-				drawEmptyFace(g2d, scale, c);
+				drawEmptyFace(g2d, c);
 			} else {
-				drawFilledFace(g2d, scale, c);
+				drawFilledFace(g2d, c);
 			}
 		}
+		if(ghostFaces > 0) {
+			g2d.setStroke(ghostStroke);
+			g2d.setColor(ghostColor);
+			for(int i = 0; i < ghostFaces; i++)
+				g2d.draw(ghostOutlines[i]);
+		}
 	}
 	
-	private void drawEmptyFace(Graphics2D g2d, float scale, CubeFace c) {
-		g2d.setStroke(new BasicStroke(1 / scale)); // so lines are 1 thick
-		Shape s = getOuterShape(c);
+	// works out which faces need drawing. a filled face seen from behind is inside its cube, and
+	// one whose front is hidden behind filled faces nearer the camera would be painted over. going
+	// nearest first, every face that could hide another is in the mask before it's tested
+	private void cull() {
+		culledWidth = getWidth();
+		culledHeight = getHeight();
+		float scale = Math.min(culledWidth, culledHeight);
+		if(visible.length < faceIndex.getRankCount())
+			visible = new boolean[faceIndex.getRankCount()];
+		Point eye = vm.getViewPoint();
+		float w = eye.get(3);
+		float ex = eye.get(0) / w, ey = eye.get(1) / w, ez = eye.get(2) / w;
+		mask.reset(culledWidth, culledHeight, scale);
+		int drawn = 0;
+		int last = faceIndex.getRankCount() - 1;
+		for(int r = faceIndex.previousFace(last); r >= 0; r = faceIndex.previousFace(r - 1)) {
+			CubeFace c = faceIndex.getFace(r);
+			visible[r] = false;
+			if(!c.isFacing(ex, ey, ez)) continue;
+			boolean filled = c.getColor().getAlpha() != 0;
+			lattice.corners(c, quad);
+			if(mask.isHidden(quad, filled ? FILLED_STROKE : EMPTY_STROKE)) continue;
+			if(filled) mask.cover(quad, FILLED_STROKE);
+			visible[r] = true;
+			drawn++;
+		}
+		facesSubmitted = faceIndex.getFaceCount();
+		facesDrawn = drawn;
+	}
+	
+	private void drawEmptyFace(Graphics2D g2d, CubeFace c) {
+		g2d.setStroke(emptyStroke);
+		Shape s = lattice.outline(c, outline);
 		g2d.setColor(gridColor);
 		g2d.draw(s);
 	}
 	
-	private void drawFilledFace(Graphics2D g2d, float scale, CubeFace c) {
-		g2d.setStroke(new BasicStroke(3 / scale)); // so lines are 2 thick
-		Shape s = getOuterShape(c);
+	private void drawFilledFace(Graphics2D g2d, CubeFace c) {
+		g2d.setStroke(filledStroke);
+		Shape s = lattice.outline(c, outline);
 		g2d.setColor(Color.BLACK);
 		g2d.draw(s);
 		g2d.setColor(c.getColor());
 		g2d.fill(s);
 		g2d.setColor(c.getLighterColor());
-		g2d.fill(getInnerShape(c));
+		g2d.fill(lattice.innerOutline(c, innerOutline));
 	}
 	
 	public void update() {
-		generateCubeFaces();
+		faceIndex.update();
+		updateGhost();
+		cull();
 		repaint();
 	}
 	
+	// outlines where the piece would land, using the chamber's column heights
+	private void updateGhost() {
+		ghostFaces = 0;
+		if(!ghostMode || !chamber.pieceActive()) return;
+		int drop = chamber.dropDistance();
+		if(drop == 0) return;
+		int count = chamber.getFallingCells(ghostCells);
+		int down = PackedPoint.pack(0, 0, -drop);
+		for(int i = 0; i < count; i++)
+			ghostCells[i] = PackedPoint.add(ghostCells[i], down);
+		for(int i = 0; i < count; i++) {
+			int p = ghostCells[i];
+			if(PackedPoint.getZ(p) >= height) continue;
+			for(int s = 0; s < SHIFTS.length; s++) {
+				int q = PackedPoint.add(p, SHIFTS[s]);
+				if(isGhost(count, q)) continue; // inside the ghost
+				// the shifts go minus then plus along each axis, and a face's cell is the one
+				// it's the minus side of
+				int cell = s % 2 == 0 ? p : q;
+				lattice.outline(s / 2, PackedPoint.getX(cell), PackedPoint.getY(cell),
+						PackedPoint.getZ(cell), ghostOutlines[ghostFaces++]);
+			}
+		}
+	}
+	
+	private boolean isGhost(int count, int cell) {
+		for(int i = 0; i < count; i++) {
+			if(ghostCells[i] == cell) return true;
+		}
+		return false;
+	}
+	
 	public void keyPressed(KeyEvent e) {
-		if(chamber.isToppedOut()) return;
+		if(session.isOver()) return;
 		boolean updated = false;
+		boolean moved = false;
 		boolean shift = e.isShiftDown();
 		switch(e.getKeyCode()) {
 			case KeyEvent.VK_UP:
-				if(paused && !CheatCodes.GRAYVIEW) return;
-				updated = vm.moveUp();
+				if(paused && !cheats.grayView) return;
+				updated = moved = vm.moveUp();
 				break;
 			case KeyEvent.VK_DOWN:
-				if(paused && !CheatCodes.GRAYVIEW) return;
-				updated = vm.moveDown();
+				if(paused && !cheats.grayView) return;
+				updated = moved = vm.moveDown();
 				break;
 			case KeyEvent.VK_LEFT:
-				if(paused && !CheatCodes.GRAYVIEW) return;
-				updated = true;
+				if(paused && !cheats.grayView) return;
+				updated = moved = true;
 				vm.moveLeft();
 				break;
 			case KeyEvent.VK_RIGHT:
-				if(paused && !CheatCodes.GRAYVIEW) return;
-				updated = true;
+				if(paused && !cheats.grayView) return;
+				updated = moved = true;
 				vm.moveRight();
 				break;
 			case KeyEvent.VK_SPACE:
@@ -217,6 +252,13 @@ public class ViewingCanvas extends JPanel {
 				updated = true;
 				softDrop();
 				break;
+			case KeyEvent.VK_G:
+				updated = true;
+				ghostMode = !ghostMode;
+				break;
+			case KeyEvent.VK_B:
+				toggleAutoPlay();
+				break;
 			case KeyEvent.VK_ENTER:
 				if(paused) return;
 				if(!chamber.pieceActive()) break;
@@ -229,13 +271,17 @@ public class ViewingCanvas extends JPanel {
 						.getKeyCode());
 				break;
 		}
+		if(moved) {
+			faceIndex.setViewPoint(vm.getViewPoint());
+			lattice.project(vm);
+		}
 		if(updated) update();
 	}
 	
 	public boolean moveEvent(int keycode) {
-		if(CheatCodes.QEUPDOWN && keycode == KeyEvent.VK_Q)
+		if(cheats.qeUpDown && keycode == KeyEvent.VK_Q)
 			return chamber.moveZPlus();
-		if(CheatCodes.QEUPDOWN && keycode == KeyEvent.VK_E)
+		if(cheats.qeUpDown && keycode == KeyEvent.VK_E)
 			return chamber.moveZMinus();
 		
 		double theta = vm.getTheta(); // to orient motion
@@ -304,28 +350,51 @@ public class ViewingCanvas extends JPanel {
 		return false;
 	}
 	
+	// the timer's drop, which the session counts as a tick
+	public void tick() {
+		if(paused) return;
+		session.setLockOnLand(!cheats.lockEnter);
+		if(session.tick())
+			optionPanel.update();
+		update();
+	}
+	
 	public void softDrop() {
 		if(paused) return;
-		boolean dropped = chamber.moveZMinus();
-		if(!dropped && !CheatCodes.LOCKENTER) {
-			chamber.lockPiece();
-			chamber.nextPiece();
+		session.setLockOnLand(!cheats.lockEnter);
+		if(session.softDrop())
 			optionPanel.update();
-		}
 		update();
 	}
 	
 	public void hardDrop() {
 		if(paused) return;
-		while(chamber.moveZMinus()) {
-			;
-		} // empty on purpose
-		chamber.lockPiece();
-		chamber.nextPiece();
-		optionPanel.update();
+		if(session.hardDrop())
+			optionPanel.update();
 		update();
 	}
 	
+	// one move by the bot, from its own timer so it can be watched
+	public void botStep() {
+		if(paused || bot == null || session.isOver()) return;
+		session.setLockOnLand(!cheats.lockEnter);
+		long pieces = session.getPiecesLocked();
+		session.command(bot.nextCommand(session));
+		if(session.getPiecesLocked() != pieces)
+			optionPanel.update();
+		update();
+	}
+	
+	public void toggleAutoPlay() {
+		bot = bot == null ? newBot() : null;
+	}
+	
+	private HeuristicPlayer newBot() {
+		HeuristicPlayer player = new HeuristicPlayer(new Heuristic());
+		player.setPool(ForkJoinPool.commonPool());
+		return player;
+	}
+	
 	public void togglePause() {
 		if(paused)
 			unpause();
@@ -346,12 +415,17 @@ public class ViewingCanvas extends JPanel {
 	}
 	
 	public void newGame() {
-		chamber = new Chamber(6, 6, 12);
+		session = new GameSession(6, 6, 12);
+		chamber = session.getChamber();
 		length = chamber.getLength();
 		width = chamber.getWidth();
 		height = chamber.getHeight();
 		vm = new ViewMath(chamber);
-		generateCubeFaces();
+		faceIndex = new FaceIndex(chamber, vm.getViewPoint());
+		lattice = new ProjectedLattice(chamber);
+		lattice.project(vm);
+		if(bot != null) bot = newBot();
+		cull();
 		theme.restart();
 	}
 	
@@ -359,11 +433,23 @@ public class ViewingCanvas extends JPanel {
 		return chamber.getNextPiece();
 	}
 	
+	public int getFacesSubmitted() {
+		return facesSubmitted;
+	}
+	
+	public int getFacesDrawn() {
+		return facesDrawn;
+	}
+	
+	public CheatCodes getCheatCodes() {
+		return cheats;
+	}
+	
 	public void setOptionPanel(OptionPanel op) {
 		optionPanel = op;
 	}
 	
 	public long getScore() {
-		return chamber.getScore();
+		return session.getScore();
 	}
 }
\ No newline at end of file